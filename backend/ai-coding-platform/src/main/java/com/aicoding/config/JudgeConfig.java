@@ -0,0 +1,179 @@
+package com.aicoding.config;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread pools used by the judging pipeline. With spring.threads.virtual.enabled
+ * on Java 21 or later, judging and test case fan-out run on virtual threads
+ * instead; the sandbox still caps how many processes run at once.
+ */
+@Slf4j
+@Configuration
+public class JudgeConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${judge.queue.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${judge.queue.capacity:200}")
+    private int queueCapacity;
+
+    @Value("${judge.parallel.threads:0}")
+    private int testCaseThreads;
+
+    @Value("${ai.validation.parallel.threads:0}")
+    private int validationThreads;
+
+    /**
+     * Bounded pool of judge workers draining the submission queue. Once the
+     * queue is full new tasks are rejected instead of piling up in memory.
+     */
+    @Bean(name = "judgeExecutor")
+    public TaskExecutor judgeExecutor(
+            @Qualifier("judgeVirtualThreadExecutor") ObjectProvider<SimpleAsyncTaskExecutor> virtualThreadExecutor) {
+        if (useVirtualThreads()) {
+            return admissionLimited(virtualThreadExecutor.getObject(), workerThreads + queueCapacity);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("judge-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Virtual threads behind the judge executor. A bean of its own, so that on
+     * shutdown it waits for running judge tasks like the platform pool does.
+     */
+    @Bean(name = "judgeVirtualThreadExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor judgeVirtualThreadExecutor() {
+        return virtualThreadExecutor("judge-");
+    }
+
+    /**
+     * Shared pool that runs individual test cases of a submission in parallel.
+     * When its queue is full the submitting thread waits for room rather than
+     * running the test case itself, where cancelling the case on a fail-fast
+     * failure would interrupt the judge thread.
+     */
+    @Bean(name = "testCaseExecutor")
+    public TaskExecutor testCaseExecutor() {
+        if (useVirtualThreads()) {
+            // Bounded per submission by judge.parallel.max-concurrency-per-submission
+            return virtualThreadExecutor("judge-case-");
+        }
+        int threads = testCaseThreads > 0 ? testCaseThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 4);
+        executor.setRejectedExecutionHandler(JudgeConfig::waitForRoom);
+        executor.setThreadNamePrefix("judge-case-");
+        return executor;
+    }
+
+    /**
+     * Runs the test cases of AI problem validations in parallel when
+     * ai.validation.parallel.enabled is set. Saturation falls back to the caller,
+     * and cases run that way are not bound by ai.validation.parallel.test-timeout-ms.
+     */
+    @Bean(name = "validationExecutor")
+    public ThreadPoolTaskExecutor validationExecutor() {
+        int threads = validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 4);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("validation-");
+        return executor;
+    }
+
+    /**
+     * Single writer for the problem and user statistics, so counter updates
+     * never race each other.
+     */
+    @Bean(name = "statisticsExecutor")
+    public ThreadPoolTaskExecutor statisticsExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("judge-stats-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Test case tasks never submit further tasks, so the pool always drains the queue
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Test case pool is shut down");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the test case pool", e);
+        }
+    }
+
+    private boolean useVirtualThreads() {
+        if (virtualThreadsEnabled && Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled needs Java 21 or later, judging on platform threads");
+            return false;
+        }
+        return virtualThreadsEnabled;
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+
+    // Keeps the queue's backpressure: beyond the given number of unfinished
+    // tasks new ones are rejected rather than each getting a thread
+    private TaskExecutor admissionLimited(TaskExecutor executor, int maxUnfinished) {
+        Semaphore admitted = new Semaphore(maxUnfinished);
+        return task -> {
+            if (!admitted.tryAcquire()) {
+                throw new TaskRejectedException("More than " + maxUnfinished + " judge tasks pending");
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        admitted.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                admitted.release();
+                throw e;
+            }
+        };
+    }
+}
@@ -3,9 +3,12 @@ package com.aicoding.controller;
 import com.aicoding.dto.response.AIProblemResponse;
 import com.aicoding.model.AIProblem;
 import com.aicoding.service.AIProblemService;
+import com.aicoding.validation.SolutionResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -18,9 +21,14 @@ public class AIProblemController {
     private AIProblemService aiProblemService;
     
     @GetMapping
-    public ResponseEntity<List<AIProblem>> getAllProblems() {
+    public ResponseEntity<List<AIProblem>> getAllProblems(WebRequest request) {
+        // The catalog is served from memory; clients revalidate with If-None-Match
+        String etag = aiProblemService.getActiveProblemsETag();
+        if (etag != null && request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<AIProblem> problems = aiProblemService.getAllActiveProblems();
-        return ResponseEntity.ok(problems);
+        return etag != null ? ResponseEntity.ok().eTag(etag).body(problems) : ResponseEntity.ok(problems);
     }
     
     @GetMapping("/{id}")
@@ -42,12 +50,12 @@ public class AIProblemController {
     }
     
     @PostMapping("/{id}/submit")
-    public ResponseEntity<Map<String, Object>> submitSolution(
+    public ResponseEntity<SolutionResult> submitSolution(
             @PathVariable String id,
             @RequestBody Map<String, String> submission) {
         
         String code = submission.get("code");
-        Map<String, Object> result = aiProblemService.validateSolution(id, code);
+        SolutionResult result = aiProblemService.validateSolution(id, code);
         return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.aicoding.dto.request.SubmissionRequest;
 import com.aicoding.dto.response.MessageResponse;
@@ -25,6 +27,7 @@ import com.aicoding.dto.response.SubmissionResponse;
 import com.aicoding.dto.response.TestResultResponse;
 import com.aicoding.model.SubmissionStatus;
 import com.aicoding.security.services.UserDetailsImpl;
+import com.aicoding.service.SubmissionProgressService;
 import com.aicoding.service.SubmissionService;
 
 // Add these missing imports:
@@ -46,6 +49,9 @@ public class SubmissionController {
     @Autowired
     private SubmissionService submissionService;
     
+    @Autowired
+    private SubmissionProgressService submissionProgressService;
+    
     @Autowired
     private CodeExecutionService codeExecutionService;
     
@@ -57,8 +63,10 @@ public class SubmissionController {
     public ResponseEntity<SubmissionResponse> submitSolution(
             @Valid @RequestBody SubmissionRequest submissionRequest) {
         
+        // The submission is judged asynchronously; follow GET /api/submissions/{id}/events
+        // or poll GET /api/submissions/{id} for the verdict
         SubmissionResponse submission = submissionService.submitSolution(submissionRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body(submission);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(submission);
     }
 
     @GetMapping("/{id}")
@@ -68,6 +76,13 @@ public class SubmissionController {
         return ResponseEntity.ok(submission);
     }
 
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public SseEmitter streamSubmissionProgress(@PathVariable Long id) {
+        // Emits "status" events and a "test-result" event per finished test case
+        return submissionProgressService.subscribe(id);
+    }
+
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<Page<SubmissionResponse>> getUserSubmissions(
@@ -75,7 +90,8 @@ public class SubmissionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "submittedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "list") String view) {
         
         // Check if the user is requesting their own submissions or has admin/moderator role
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -89,7 +105,7 @@ public class SubmissionController {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
-        Page<SubmissionResponse> submissions = submissionService.getUserSubmissions(userId, pageable);
+        Page<SubmissionResponse> submissions = submissionService.getUserSubmissions(userId, pageable, isFullView(view));
         
         return ResponseEntity.ok(submissions);
     }
@@ -101,11 +117,12 @@ public class SubmissionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "submittedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "list") String view) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
-        Page<SubmissionResponse> submissions = submissionService.getProblemSubmissions(problemId, pageable);
+        Page<SubmissionResponse> submissions = submissionService.getProblemSubmissions(problemId, pageable, isFullView(view));
         
         return ResponseEntity.ok(submissions);
     }
@@ -118,7 +135,8 @@ public class SubmissionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "submittedAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "list") String view) {
         
         // Check if the user is requesting their own submissions or has admin/moderator role
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -132,7 +150,7 @@ public class SubmissionController {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
-        Page<SubmissionResponse> submissions = submissionService.getUserProblemSubmissions(userId, problemId, pageable);
+        Page<SubmissionResponse> submissions = submissionService.getUserProblemSubmissions(userId, problemId, pageable, isFullView(view));
         
         return ResponseEntity.ok(submissions);
     }
@@ -144,7 +162,8 @@ public class SubmissionController {
             @PathVariable Long problemId,
             @PathVariable SubmissionStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "list") String view) {
         
         // Check if the user is requesting their own submissions or has admin/moderator role
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -157,7 +176,8 @@ public class SubmissionController {
         }
         
         Pageable pageable = PageRequest.of(page, size);
-        Page<SubmissionResponse> submissions = submissionService.getUserProblemSubmissionsByStatus(userId, problemId, status, pageable);
+        Page<SubmissionResponse> submissions = submissionService.getUserProblemSubmissionsByStatus(userId, problemId, status, pageable,
+                isFullView(view));
         
         return ResponseEntity.ok(submissions);
     }
@@ -203,4 +223,9 @@ public class SubmissionController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+    
+    // Submission pages leave out code and test results unless view=full
+    private boolean isFullView(String view) {
+        return "full".equalsIgnoreCase(view);
+    }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.aicoding.model.Difficulty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
@@ -32,4 +33,12 @@ public class ProblemRequest {
     private List<CodeTemplate> codeTemplates;
 
     private boolean active = true;
+
+    private Boolean stopOnFirstFailure;
+
+    @Positive
+    private Integer timeLimitMs;
+
+    @Positive
+    private Integer memoryLimitMb;
 }
\ No newline at end of file
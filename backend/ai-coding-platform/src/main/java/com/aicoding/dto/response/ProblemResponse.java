@@ -21,6 +21,9 @@ public class ProblemResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private boolean active;
+    private Boolean stopOnFirstFailure;
+    private Integer timeLimitMs;
+    private Integer memoryLimitMb;
     private int submissionCount;
     private double successRate;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.aicoding.dto.response;
+
+import com.aicoding.model.SubmissionStatus;
+
+import lombok.Data;
+
+@Data
+public class SubmissionProgressEvent {
+    private Long submissionId;
+    private SubmissionStatus status;
+    private Integer completedTestCases;
+    private Integer totalTestCases;
+    private TestResultResponse testResult;
+    private Double score;
+    private Long executionTimeMs;
+    private Long memoryUsageBytes;
+    private String errorMessage;
+}
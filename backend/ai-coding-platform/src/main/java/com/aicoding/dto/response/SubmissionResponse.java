@@ -19,6 +19,7 @@ public class SubmissionResponse {
     private Double score;
     private Long executionTimeMs;
     private Long memoryUsageBytes;
+    private String errorMessage;
     private List<TestResultResponse> testResults;
     private LocalDateTime submittedAt;
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.aicoding.dto.response;
 
+import com.aicoding.model.SubmissionStatus;
+
 import lombok.Data;
 
 @Data
@@ -10,8 +12,10 @@ public class TestResultResponse {
     private String expectedOutput;
     private String actualOutput;
     private boolean passed;
+    private SubmissionStatus verdict;
     private String errorMessage;
     private Long executionTimeMs;
+    private Long cpuTimeMs;
     private Long memoryUsageBytes;
     private Double similarityScore;
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.aicoding.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class JudgeQueueFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public JudgeQueueFullException(String message) {
+        super(message);
+    }
+
+    public JudgeQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,40 @@
+package com.aicoding.model;
+
+import org.hibernate.Length;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * All test case results of one submission in a single row, written instead of
+ * one test_results row per case when judge.results.storage-mode=compact.
+ * The per-case values are packed column by column into {@link #data}; only
+ * the first failing case keeps its output and error message, capped and
+ * deflated. See TestResultStorageServiceImpl for the layout.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "packed_test_results")
+public class PackedTestResults {
+    @Id
+    private Long submissionId;
+
+    private int testCaseCount;
+
+    // Test case ids, passed bitset, verdicts, times, memory and similarity scores
+    @Column(length = Length.LONG32)
+    private byte[] data;
+
+    // Index of the first failing case, null when every case passed
+    private Integer firstFailureIndex;
+
+    @Column(length = Length.LONG32)
+    private byte[] firstFailureOutput;
+
+    @Column(length = Length.LONG32)
+    private byte[] firstFailureError;
+}
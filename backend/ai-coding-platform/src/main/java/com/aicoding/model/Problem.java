@@ -54,6 +54,16 @@ public class Problem {
     private LocalDateTime updatedAt;
     private boolean active = true;
 
+    // Stop judging at the first failing test case; null falls back to the global default
+    private Boolean stopOnFirstFailure;
+
+    // Per-problem resource limits; null falls back to the sandbox defaults
+    private Integer timeLimitMs;
+    private Integer memoryLimitMb;
+
+    // Bumped whenever a change can alter verdicts, so memoized verdicts of older versions are not reused
+    private Integer judgeVersion = 0;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,23 @@
+package com.aicoding.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Submission counters of a problem, maintained as submissions finish judging.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "problem_stats")
+public class ProblemStats {
+    @Id
+    private Long problemId;
+
+    private long submissionCount;
+
+    private long acceptedCount;
+}
@@ -13,10 +13,14 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "submissions")
+@Table(name = "submissions", indexes = {
+        @Index(name = "idx_submissions_problem_code_hash", columnList = "problem_id, code_hash")
+})
 public class Submission {
+    // Sequence ids are handed out in blocks, so inserts need no round trip for the key and can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "submissions_seq")
+    @SequenceGenerator(name = "submissions_seq", sequenceName = "submissions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -30,9 +34,16 @@ public class Submission {
     @Column(columnDefinition = "TEXT")
     private String code;
 
+    // Hash of the normalized code, used to reuse the verdict of an identical earlier submission
+    @Column(name = "code_hash", length = 64)
+    private String codeHash;
+
     @Enumerated(EnumType.STRING)
     private ProgrammingLanguage language;
 
+    // Problem.judgeVersion at the time of submission
+    private Integer judgeVersion;
+
     @Enumerated(EnumType.STRING)
     private SubmissionStatus status;
 
@@ -42,11 +53,18 @@ public class Submission {
 
     private Long memoryUsageBytes;
 
+    // Compiler output or system error details when no test case could run
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
     @OneToMany(mappedBy = "submission", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<TestResult> testResults = new ArrayList<>();
 
     private LocalDateTime submittedAt;
 
+    // Set once the finished submission has been added to the problem and user statistics
+    private Boolean countedInStats;
+
     @PrePersist
     protected void onCreate() {
         submittedAt = LocalDateTime.now();
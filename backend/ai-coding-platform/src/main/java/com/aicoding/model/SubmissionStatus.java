@@ -1,5 +1,6 @@
 package com.aicoding.model;
 
+// Packed test results store verdicts by ordinal: add new statuses at the end
 public enum SubmissionStatus {
     PENDING,        // Submission is queued for evaluation
     RUNNING,        // Submission is currently being evaluated
@@ -9,5 +10,6 @@ public enum SubmissionStatus {
     RUNTIME_ERROR,  // Code threw an exception during execution
     TIME_LIMIT_EXCEEDED, // Code took too long to execute
     MEMORY_LIMIT_EXCEEDED, // Code used too much memory
+    OUTPUT_LIMIT_EXCEEDED, // Code printed more than the output limit
     SYSTEM_ERROR    // Error in the evaluation system
 }
\ No newline at end of file
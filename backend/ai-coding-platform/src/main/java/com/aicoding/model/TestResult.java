@@ -11,8 +11,10 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "test_results")
 public class TestResult {
+    // Sequence ids let a submission's results go out as batched inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "test_results_seq")
+    @SequenceGenerator(name = "test_results_seq", sequenceName = "test_results_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -25,6 +27,10 @@ public class TestResult {
 
     private boolean passed;
 
+    // Outcome of this test case: ACCEPTED, WRONG_ANSWER or the error that stopped it
+    @Enumerated(EnumType.STRING)
+    private SubmissionStatus verdict;
+
     @Column(columnDefinition = "TEXT")
     private String actualOutput;
 
@@ -33,6 +39,8 @@ public class TestResult {
 
     private Long executionTimeMs;
 
+    private Long cpuTimeMs;
+
     private Long memoryUsageBytes;
 
     // For partial credit in ML problems
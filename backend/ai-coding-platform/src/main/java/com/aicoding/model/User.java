@@ -1,5 +1,7 @@
 package com.aicoding.model;
 
+import com.aicoding.security.services.UserChangeListener;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -16,6 +18,7 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(UserChangeListener.class)
 @Table(name = "users",
        uniqueConstraints = {
            @UniqueConstraint(columnNames = "username"),
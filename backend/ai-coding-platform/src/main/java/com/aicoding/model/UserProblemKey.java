@@ -0,0 +1,18 @@
+package com.aicoding.model;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class UserProblemKey implements Serializable {
+    private Long userId;
+
+    private Long problemId;
+}
@@ -0,0 +1,22 @@
+package com.aicoding.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Accepted submissions of one user for one problem, used to keep
+ * UserStats.solvedProblems a distinct count.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_problem_stats")
+public class UserProblemStats {
+    @EmbeddedId
+    private UserProblemKey id;
+
+    private long acceptedCount;
+}
@@ -0,0 +1,26 @@
+package com.aicoding.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Submission counters of a user, maintained as submissions finish judging.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+    @Id
+    private Long userId;
+
+    private long submissionCount;
+
+    private long acceptedCount;
+
+    // Distinct problems with at least one accepted submission
+    private long solvedProblems;
+}
@@ -0,0 +1,15 @@
+package com.aicoding.repository;
+
+import com.aicoding.model.PackedTestResults;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PackedTestResultsRepository extends JpaRepository<PackedTestResults, Long> {
+
+    @Modifying
+    @Query("DELETE FROM PackedTestResults p WHERE p.submissionId = :submissionId")
+    void deleteBySubmissionId(Long submissionId);
+}
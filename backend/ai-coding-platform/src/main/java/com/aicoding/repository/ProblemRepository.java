@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -33,4 +34,8 @@ public interface ProblemRepository extends JpaRepository<Problem, Long> {
     List<Problem> findTop10ByActiveTrueOrderByCreatedAtDesc();
     
     int countByCategoriesContaining(Category category);
+    
+    // One row per category: category id, number of problems in it
+    @Query("SELECT c.id, COUNT(p) FROM Problem p JOIN p.categories c WHERE c.id IN :categoryIds GROUP BY c.id")
+    List<Object[]> countByCategoryIdsGrouped(Collection<Long> categoryIds);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.aicoding.repository;
+
+import com.aicoding.model.ProblemStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProblemStatsRepository extends JpaRepository<ProblemStats, Long> {
+}
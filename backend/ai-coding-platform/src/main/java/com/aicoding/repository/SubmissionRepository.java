@@ -1,30 +1,73 @@
 package com.aicoding.repository;
 
 import com.aicoding.model.Problem;
+import com.aicoding.model.ProgrammingLanguage;
 import com.aicoding.model.Submission;
 import com.aicoding.model.SubmissionStatus;
 import com.aicoding.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
+    
+    // Submission history without code or test results, one row per submission: id, language, status,
+    // score, execution time, memory, error message, submitted at, user id, username, email,
+    // problem id, problem title, difficulty
+    String SUMMARY = "SELECT s.id, s.language, s.status, s.score, s.executionTimeMs, s.memoryUsageBytes, " +
+            "s.errorMessage, s.submittedAt, u.id, u.username, u.email, p.id, p.title, p.difficulty " +
+            "FROM Submission s JOIN s.user u JOIN s.problem p ";
+    
+    // Pages of whole submissions come with their user and problem, instead of a query for each
+    @Query(value = "SELECT s FROM Submission s JOIN FETCH s.user JOIN FETCH s.problem WHERE s.user = :user",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.user = :user")
     Page<Submission> findByUser(User user, Pageable pageable);
     
+    @Query(value = "SELECT s FROM Submission s JOIN FETCH s.user JOIN FETCH s.problem WHERE s.problem = :problem",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.problem = :problem")
     Page<Submission> findByProblem(Problem problem, Pageable pageable);
     
+    @Query(value = "SELECT s FROM Submission s JOIN FETCH s.user JOIN FETCH s.problem " +
+                   "WHERE s.user = :user AND s.problem = :problem",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.user = :user AND s.problem = :problem")
     Page<Submission> findByUserAndProblem(User user, Problem problem, Pageable pageable);
     
     List<Submission> findByUserAndProblemAndStatus(User user, Problem problem, SubmissionStatus status);
     
+    @Query(value = "SELECT s FROM Submission s JOIN FETCH s.user JOIN FETCH s.problem " +
+                   "WHERE s.user = :user AND s.problem = :problem AND s.status = :status",
+           countQuery = "SELECT COUNT(s) FROM Submission s " +
+                        "WHERE s.user = :user AND s.problem = :problem AND s.status = :status")
     Page<Submission> findByUserAndProblemAndStatus(User user, Problem problem, SubmissionStatus status, Pageable pageable);
     
+    @Query(value = SUMMARY + "WHERE s.user = :user",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.user = :user")
+    Page<Object[]> findSummariesByUser(User user, Pageable pageable);
+    
+    @Query(value = SUMMARY + "WHERE s.problem = :problem",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.problem = :problem")
+    Page<Object[]> findSummariesByProblem(Problem problem, Pageable pageable);
+    
+    @Query(value = SUMMARY + "WHERE s.user = :user AND s.problem = :problem",
+           countQuery = "SELECT COUNT(s) FROM Submission s WHERE s.user = :user AND s.problem = :problem")
+    Page<Object[]> findSummariesByUserAndProblem(User user, Problem problem, Pageable pageable);
+    
+    @Query(value = SUMMARY + "WHERE s.user = :user AND s.problem = :problem AND s.status = :status",
+           countQuery = "SELECT COUNT(s) FROM Submission s " +
+                        "WHERE s.user = :user AND s.problem = :problem AND s.status = :status")
+    Page<Object[]> findSummariesByUserAndProblemAndStatus(User user, Problem problem, SubmissionStatus status,
+            Pageable pageable);
+    
     Long countByProblem(Problem problem);
     
     Long countByUser(User user);
@@ -41,6 +84,49 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     @Query("SELECT COUNT(s) FROM Submission s WHERE s.submittedAt >= :startDate")
     Long countSubmissionsAfterDate(LocalDateTime startDate);
     
+    Optional<Submission> findFirstByProblemAndLanguageAndCodeHashAndJudgeVersionAndStatusInOrderBySubmittedAtDesc(
+            Problem problem, ProgrammingLanguage language, String codeHash, Integer judgeVersion,
+            Collection<SubmissionStatus> statuses);
+    
+    @Query("SELECT s FROM Submission s JOIN FETCH s.problem p LEFT JOIN FETCH p.testCases WHERE s.id = :id")
+    Optional<Submission> findByIdForJudging(Long id);
+    
+    @Query("SELECT s.id FROM Submission s WHERE s.status IN :statuses ORDER BY s.submittedAt")
+    List<Long> findIdsByStatusIn(List<SubmissionStatus> statuses);
+    
+    @Query("SELECT s.id FROM Submission s WHERE s.status IN :statuses " +
+           "AND (s.countedInStats IS NULL OR s.countedInStats = false) ORDER BY s.id")
+    List<Long> findIdsNotCountedInStats(Collection<SubmissionStatus> statuses);
+    
+    @Modifying
+    @Query("UPDATE Submission s SET s.countedInStats = true WHERE s.id = :id")
+    int markCountedInStats(Long id);
+    
+    // A single UPDATE, where saving the detached submission would select and merge it first
+    @Transactional
+    @Modifying
+    @Query("UPDATE Submission s SET s.status = :status WHERE s.id = :id")
+    int updateStatus(Long id, SubmissionStatus status);
+    
+    @Modifying
+    @Query("UPDATE Submission s SET s.countedInStats = true WHERE s.status IN :statuses")
+    int markAllCountedInStats(Collection<SubmissionStatus> statuses);
+    
+    // Statistics backfill, one row per problem: problem id, submissions, accepted submissions
+    @Query("SELECT s.problem.id, COUNT(s), SUM(CASE WHEN s.status = :accepted THEN 1 ELSE 0 END) " +
+           "FROM Submission s WHERE s.status IN :statuses GROUP BY s.problem.id")
+    List<Object[]> countPerProblem(Collection<SubmissionStatus> statuses, SubmissionStatus accepted);
+    
+    // Statistics backfill, one row per user: user id, submissions, accepted submissions
+    @Query("SELECT s.user.id, COUNT(s), SUM(CASE WHEN s.status = :accepted THEN 1 ELSE 0 END) " +
+           "FROM Submission s WHERE s.status IN :statuses GROUP BY s.user.id")
+    List<Object[]> countPerUser(Collection<SubmissionStatus> statuses, SubmissionStatus accepted);
+    
+    // Statistics backfill, one row per solved (user, problem) pair: user id, problem id, accepted submissions
+    @Query("SELECT s.user.id, s.problem.id, COUNT(s) FROM Submission s WHERE s.status = :accepted " +
+           "GROUP BY s.user.id, s.problem.id")
+    List<Object[]> countAcceptedPerUserAndProblem(SubmissionStatus accepted);
+    
     @Query("SELECT s.problem.id, COUNT(s) as count FROM Submission s GROUP BY s.problem.id ORDER BY count DESC")
     List<Object[]> findMostAttemptedProblems(Pageable pageable);
 }
\ No newline at end of file
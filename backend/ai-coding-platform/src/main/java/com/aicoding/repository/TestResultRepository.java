@@ -1,5 +1,6 @@
 package com.aicoding.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,6 +16,13 @@ import com.aicoding.model.TestResult;
 public interface TestResultRepository extends JpaRepository<TestResult, Long> {
     List<TestResult> findBySubmission(Submission submission);
     
+    // Ids follow the test case order the results were recorded in; test cases are fetched along
+    @Query("SELECT tr FROM TestResult tr JOIN FETCH tr.testCase WHERE tr.submission = :submission ORDER BY tr.id")
+    List<TestResult> findBySubmissionOrderByIdAsc(Submission submission);
+    
+    @Query("SELECT tr FROM TestResult tr JOIN FETCH tr.testCase WHERE tr.submission IN :submissions ORDER BY tr.id")
+    List<TestResult> findBySubmissionInOrderByIdAsc(Collection<Submission> submissions);
+    
     List<TestResult> findBySubmissionAndPassed(Submission submission, boolean passed);
     
     List<TestResult> findByTestCase(TestCase testCase);
@@ -0,0 +1,10 @@
+package com.aicoding.repository;
+
+import com.aicoding.model.UserProblemStats;
+import com.aicoding.model.UserProblemKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserProblemStatsRepository extends JpaRepository<UserProblemStats, UserProblemKey> {
+}
@@ -0,0 +1,104 @@
+package com.aicoding.sandbox;
+
+import java.util.List;
+
+import com.aicoding.model.ProgrammingLanguage;
+
+/**
+ * Compile and run commands per language. Placeholders: {dir} is the program
+ * directory, {memoryMb} the memory limit for runtimes (and JVM-based compilers)
+ * that manage their own heap.
+ * Java and Kotlin submissions must declare their entry point as class Main.
+ */
+public enum LanguageToolchain {
+    JAVA(ProgrammingLanguage.JAVA, "Main.java",
+            List.of("javac", "-J-Xmx{memoryMb}m", "-encoding", "UTF-8", "-d", "{dir}", "{dir}/Main.java"),
+            List.of("java", "-Xmx{memoryMb}m", "-Xss64m", "-XX:+UseSerialGC", "-cp", "{dir}", "Main"),
+            false),
+    PYTHON(ProgrammingLanguage.PYTHON, "main.py",
+            null,
+            List.of("python3", "{dir}/main.py"),
+            true),
+    JAVASCRIPT(ProgrammingLanguage.JAVASCRIPT, "main.js",
+            null,
+            List.of("node", "--max-old-space-size={memoryMb}", "{dir}/main.js"),
+            false),
+    CPP(ProgrammingLanguage.CPP, "main.cpp",
+            List.of("g++", "-O2", "-std=c++17", "-o", "{dir}/main", "{dir}/main.cpp"),
+            List.of("{dir}/main"),
+            true),
+    C(ProgrammingLanguage.C, "main.c",
+            List.of("gcc", "-O2", "-std=c11", "-o", "{dir}/main", "{dir}/main.c", "-lm"),
+            List.of("{dir}/main"),
+            true),
+    CSHARP(ProgrammingLanguage.CSHARP, "Main.cs",
+            List.of("mcs", "-optimize+", "-out:{dir}/main.exe", "{dir}/Main.cs"),
+            List.of("mono", "{dir}/main.exe"),
+            false),
+    GO(ProgrammingLanguage.GO, "main.go",
+            List.of("go", "build", "-o", "{dir}/main", "{dir}/main.go"),
+            List.of("{dir}/main"),
+            false),
+    RUST(ProgrammingLanguage.RUST, "main.rs",
+            List.of("rustc", "-O", "-o", "{dir}/main", "{dir}/main.rs"),
+            List.of("{dir}/main"),
+            true),
+    KOTLIN(ProgrammingLanguage.KOTLIN, "Main.kt",
+            List.of("kotlinc", "-J-Xmx{memoryMb}m", "{dir}/Main.kt", "-include-runtime", "-d", "{dir}/main.jar"),
+            List.of("java", "-Xmx{memoryMb}m", "-Xss64m", "-XX:+UseSerialGC", "-jar", "{dir}/main.jar"),
+            false),
+    SWIFT(ProgrammingLanguage.SWIFT, "main.swift",
+            List.of("swiftc", "-O", "-o", "{dir}/main", "{dir}/main.swift"),
+            List.of("{dir}/main"),
+            true);
+
+    private final ProgrammingLanguage language;
+    private final String sourceFile;
+    private final List<String> compileCommand;
+    private final List<String> runCommand;
+    // Whether an address-space rlimit can enforce the memory cap. Runtimes that
+    // reserve large virtual ranges up front (JVM, V8, Go, Mono) use heap flags instead.
+    private final boolean addressSpaceLimited;
+
+    LanguageToolchain(ProgrammingLanguage language, String sourceFile, List<String> compileCommand,
+            List<String> runCommand, boolean addressSpaceLimited) {
+        this.language = language;
+        this.sourceFile = sourceFile;
+        this.compileCommand = compileCommand;
+        this.runCommand = runCommand;
+        this.addressSpaceLimited = addressSpaceLimited;
+    }
+
+    public static LanguageToolchain forLanguage(ProgrammingLanguage language) {
+        for (LanguageToolchain toolchain : values()) {
+            if (toolchain.language == language) {
+                return toolchain;
+            }
+        }
+        throw new IllegalArgumentException("No toolchain configured for " + language);
+    }
+
+    public ProgrammingLanguage getLanguage() {
+        return language;
+    }
+
+    public String getSourceFile() {
+        return sourceFile;
+    }
+
+    public boolean isCompiled() {
+        return compileCommand != null;
+    }
+
+    public List<String> getCompileCommand() {
+        return compileCommand;
+    }
+
+    public List<String> getRunCommand() {
+        return runCommand;
+    }
+
+    public boolean isAddressSpaceLimited() {
+        return addressSpaceLimited;
+    }
+}
@@ -0,0 +1,16 @@
+package com.aicoding.sandbox;
+
+/**
+ * Raised when the sandbox itself fails, as opposed to the user program.
+ */
+public class SandboxException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SandboxException(String message) {
+        super(message);
+    }
+
+    public SandboxException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,53 @@
+package com.aicoding.sandbox;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.aicoding.model.ProgrammingLanguage;
+
+public interface SandboxExecutor {
+    /**
+     * Prepares user code for execution, compiling it if the language requires it
+     * @param code The user's submitted code
+     * @param language The programming language of the code
+     * @return A program handle; check {@link SandboxProgram#isCompiled()} before running it
+     */
+    SandboxProgram prepare(String code, ProgrammingLanguage language);
+    
+    /**
+     * Runs a prepared program once against the given input
+     * @param program The program returned by {@link #prepare}
+     * @param input Data fed to the program's standard input
+     * @param limits Time, memory and output caps for this run
+     * @return Outcome, captured output and measured resource usage
+     */
+    SandboxResult run(SandboxProgram program, String input, SandboxLimits limits);
+    
+    /**
+     * Runs a prepared program once, writing its standard output to the given writer
+     * as it is read back instead of collecting it into the result
+     * @param program The program returned by {@link #prepare}
+     * @param input Data fed to the program's standard input
+     * @param limits Time, memory and output caps for this run; at most the output limit is written
+     * @param stdout Receives the program's standard output
+     * @return Outcome and measured resource usage; stdout is left null
+     */
+    default SandboxResult run(SandboxProgram program, String input, SandboxLimits limits, Writer stdout) {
+        SandboxResult result = run(program, input, limits);
+        try {
+            if (result.getStdout() != null) {
+                stdout.write(result.getStdout());
+            }
+        } catch (IOException e) {
+            throw new SandboxException("Failed to pass on program output: " + e.getMessage(), e);
+        }
+        result.setStdout(null);
+        return result;
+    }
+    
+    /**
+     * Releases any resources (work directories, artifacts) held by the program
+     * @param program The program to release
+     */
+    void release(SandboxProgram program);
+}
@@ -0,0 +1,16 @@
+package com.aicoding.sandbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SandboxLimits {
+    private long timeLimitMs;
+
+    private long memoryLimitBytes;
+
+    private long outputLimitBytes;
+}
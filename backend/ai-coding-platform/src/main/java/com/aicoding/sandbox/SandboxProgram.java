@@ -0,0 +1,24 @@
+package com.aicoding.sandbox;
+
+import java.nio.file.Path;
+
+import com.aicoding.model.ProgrammingLanguage;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class SandboxProgram {
+    private ProgrammingLanguage language;
+
+    private String code;
+
+    // Directory holding the source file and any build artifacts
+    private Path directory;
+
+    private boolean compiled;
+
+    // Compiler diagnostics when compilation failed
+    private String compileOutput;
+}
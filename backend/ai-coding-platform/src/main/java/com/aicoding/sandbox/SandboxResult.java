@@ -0,0 +1,43 @@
+package com.aicoding.sandbox;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class SandboxResult {
+
+    public enum Outcome {
+        OK,                     // Program exited normally
+        COMPILE_ERROR,          // Program could not be compiled
+        RUNTIME_ERROR,          // Non-zero exit code or crash
+        TIME_LIMIT_EXCEEDED,    // Wall or CPU time limit hit
+        MEMORY_LIMIT_EXCEEDED,  // Memory limit hit
+        OUTPUT_LIMIT_EXCEEDED   // More output than the output limit
+    }
+
+    private Outcome outcome;
+
+    private String stdout;
+
+    private String stderr;
+
+    private int exitCode;
+
+    private long wallTimeMs;
+
+    private long cpuTimeMs;
+
+    private long peakMemoryBytes;
+
+    // True when stdout was larger than the output limit and got cut off
+    private boolean outputTruncated;
+
+    public static SandboxResult compileError(String compileOutput) {
+        SandboxResult result = new SandboxResult();
+        result.setOutcome(Outcome.COMPILE_ERROR);
+        result.setStderr(compileOutput);
+        result.setExitCode(-1);
+        return result;
+    }
+}
@@ -0,0 +1,251 @@
+package com.aicoding.sandbox.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.aicoding.sandbox.LanguageToolchain;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed store of build outputs. The key is a SHA-256 over the
+ * language, the compile command and the source, so the same code compiles
+ * once no matter how often it is run or submitted. Failed compilations are
+ * cached too, so a broken program reports its compile error without invoking
+ * the compiler again.
+ *
+ * Entries live in one directory per key. Artifacts are copied in and out
+ * rather than hard-linked: the program runs from its directory and could
+ * otherwise rewrite a cached binary for every later submission of the same
+ * code. Copies also mean evicting an entry never affects a program that is
+ * still running. The least recently used entries are evicted once the entry
+ * count or the disk budget is exceeded.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.type", havingValue = "process")
+public class CompilationCache {
+
+    private static final String COMPILE_ERROR_FILE = "compile-error.txt";
+
+    @Value("${judge.sandbox.compile-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.sandbox.compile-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${judge.sandbox.compile-cache.max-size-mb:512}")
+    private long maxSizeMb;
+
+    @Value("${judge.sandbox.work-dir:${java.io.tmpdir}/ai-coding-sandbox}")
+    private String workDir;
+
+    private Path root;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    /**
+     * A cached build: either the compiled artifacts or the compiler output of a failed build.
+     */
+    public static class Entry {
+        private final Path directory;
+        private final long sizeBytes;
+        private final String compileError;
+
+        Entry(Path directory, long sizeBytes, String compileError) {
+            this.directory = directory;
+            this.sizeBytes = sizeBytes;
+            this.compileError = compileError;
+        }
+
+        public boolean isCompiled() {
+            return compileError == null;
+        }
+
+        public String getCompileError() {
+            return compileError;
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        root = Files.createDirectories(Paths.get(workDir, "compile-cache"));
+
+        // Rebuild the index from disk, oldest first so they are evicted first
+        List<Path> directories;
+        try (Stream<Path> paths = Files.list(root)) {
+            directories = paths.filter(Files::isDirectory)
+                    .sorted(Comparator.comparingLong(CompilationCache::lastModified))
+                    .toList();
+        }
+        for (Path directory : directories) {
+            String key = directory.getFileName().toString();
+            if (key.startsWith("tmp-")) {
+                deleteRecursively(directory);
+                continue;
+            }
+            Entry entry = readEntry(directory);
+            entries.put(key, entry);
+            totalBytes += entry.sizeBytes;
+        }
+        synchronized (this) {
+            evict();
+        }
+        log.info("Compilation cache at {} with {} entries ({} KB)", root, entries.size(), totalBytes / 1024);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String key(String code, LanguageToolchain toolchain) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(toolchain.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.join(" ", toolchain.getCompileCommand()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            // Keeps the recency order across restarts
+            entry.directory.toFile().setLastModified(System.currentTimeMillis());
+        }
+        return entry;
+    }
+
+    /**
+     * Copies the cached artifacts into the given program directory.
+     */
+    public void restore(Entry entry, Path target) throws IOException {
+        try (Stream<Path> paths = Files.list(entry.directory)) {
+            for (Path artifact : (Iterable<Path>) paths::iterator) {
+                String name = artifact.getFileName().toString();
+                if (!name.equals(COMPILE_ERROR_FILE)) {
+                    copy(artifact, target.resolve(name));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the outcome of a build. On success every file in the program
+     * directory except the listed ones is treated as a build artifact.
+     */
+    public void put(String key, Path programDirectory, String compileError, List<String> excluded) {
+        Path staging = null;
+        try {
+            staging = Files.createTempDirectory(root, "tmp-");
+            if (compileError != null) {
+                Files.writeString(staging.resolve(COMPILE_ERROR_FILE), compileError, StandardCharsets.UTF_8);
+            } else {
+                try (Stream<Path> paths = Files.list(programDirectory)) {
+                    for (Path artifact : (Iterable<Path>) paths::iterator) {
+                        String name = artifact.getFileName().toString();
+                        if (!excluded.contains(name) && !Files.isDirectory(artifact)) {
+                            copy(artifact, staging.resolve(name));
+                        }
+                    }
+                }
+            }
+
+            Path directory = root.resolve(key);
+            try {
+                Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException | AtomicMoveNotSupportedException e) {
+                // Another thread built the same code first
+                return;
+            }
+            staging = null;
+
+            Entry entry = new Entry(directory, sizeOf(directory), compileError);
+            synchronized (this) {
+                Entry previous = entries.put(key, entry);
+                if (previous != null) {
+                    totalBytes -= previous.sizeBytes;
+                }
+                totalBytes += entry.sizeBytes;
+                evict();
+            }
+        } catch (IOException e) {
+            log.warn("Could not cache build {}: {}", key, e.getMessage());
+        } finally {
+            if (staging != null) {
+                deleteRecursively(staging);
+            }
+        }
+    }
+
+    private void evict() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            iterator.remove();
+            totalBytes -= entry.sizeBytes;
+            deleteRecursively(entry.directory);
+        }
+    }
+
+    private Entry readEntry(Path directory) throws IOException {
+        Path errorFile = directory.resolve(COMPILE_ERROR_FILE);
+        String compileError = Files.exists(errorFile) ? Files.readString(errorFile, StandardCharsets.UTF_8) : null;
+        return new Entry(directory, sizeOf(directory), compileError);
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long sizeOf(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private static long lastModified(Path path) {
+        return path.toFile().lastModified();
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+}
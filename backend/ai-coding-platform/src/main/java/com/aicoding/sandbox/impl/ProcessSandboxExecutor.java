@@ -0,0 +1,560 @@
+package com.aicoding.sandbox.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.aicoding.model.ProgrammingLanguage;
+import com.aicoding.sandbox.LanguageToolchain;
+import com.aicoding.sandbox.SandboxException;
+import com.aicoding.sandbox.SandboxExecutor;
+import com.aicoding.sandbox.SandboxLimits;
+import com.aicoding.sandbox.SandboxProgram;
+import com.aicoding.sandbox.SandboxResult;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs user programs as local child processes. Every program gets its own
+ * directory and every run its own scratch directory with stdin, stdout and
+ * stderr redirected to files, so output never has to be buffered on the heap:
+ * stdout is decoded into the caller's writer in chunks, up to the output limit.
+ * CPU time, file size and (where the runtime allows it) address space are
+ * capped with rlimits; wall time is enforced by killing the process tree.
+ * Compilers get the same treatment as programs: they run as the sandbox user
+ * with a cleared environment and rlimits, since their output goes back to the
+ * submitter and the source decides what they read and how much they allocate.
+ *
+ * Builds are reused through {@link CompilationCache}, so identical code is
+ * compiled once. Python programs run in warm workers from {@link WarmWorkerPool}
+ * when the pool can serve the requested limits.
+ *
+ * Resource usage is taken from GNU time when /usr/bin/time is installed and
+ * otherwise sampled from /proc while the process runs. Programs run as the
+ * {@link SandboxUser}. This is not a security boundary on its own, so it is
+ * only used with judge.sandbox.type=process; deploy it inside a locked-down
+ * container.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.type", havingValue = "process")
+public class ProcessSandboxExecutor implements SandboxExecutor {
+
+    private static final Path GNU_TIME = Paths.get("/usr/bin/time");
+    private static final String COMPILE_LOG = "compile.log";
+    private static final int MAX_DIAGNOSTIC_BYTES = 64 * 1024;
+    // Compiler output is stored with the submission and shown to its author
+    private static final int MAX_COMPILE_OUTPUT_BYTES = 16 * 1024;
+    private static final int COPY_BUFFER_BYTES = 8 * 1024;
+    private static final long KILL_GRACE_MS = 100;
+    private static final long SAMPLE_INTERVAL_MS = 5;
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    private static final int SIGKILL = 9;
+    private static final int SIGXCPU = 24;
+
+    @Autowired
+    private WarmWorkerPool warmWorkerPool;
+
+    @Autowired
+    private CompilationCache compilationCache;
+
+    @Autowired
+    private SandboxUser sandboxUser;
+
+    @Value("${judge.sandbox.work-dir:${java.io.tmpdir}/ai-coding-sandbox}")
+    private String workDir;
+
+    @Value("${judge.sandbox.compile-timeout-ms:15000}")
+    private long compileTimeoutMs;
+
+    @Value("${judge.sandbox.compile-memory-mb:1024}")
+    private long compileMemoryMb;
+
+    @Value("${judge.sandbox.compile-file-limit-mb:64}")
+    private long compileFileLimitMb;
+
+    @Value("${judge.sandbox.max-concurrent-processes:0}")
+    private int maxConcurrentProcesses;
+
+    // Caps compilers and programs running at once, however many judge threads are waiting
+    private Semaphore processSlots;
+
+    private Path root;
+
+    private boolean gnuTimeAvailable;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Files.createDirectories(Paths.get(workDir));
+        sandboxUser.traversable(root);
+        gnuTimeAvailable = Files.isExecutable(GNU_TIME);
+        processSlots = new Semaphore(maxConcurrentProcesses > 0
+                ? maxConcurrentProcesses : Runtime.getRuntime().availableProcessors(), true);
+        log.info("Process sandbox using {} (resource usage from {})", root,
+                gnuTimeAvailable ? GNU_TIME : "/proc sampling");
+    }
+
+    @Override
+    public SandboxProgram prepare(String code, ProgrammingLanguage language) {
+        LanguageToolchain toolchain = LanguageToolchain.forLanguage(language);
+        SandboxProgram program = new SandboxProgram();
+        program.setLanguage(language);
+        program.setCode(code);
+
+        try {
+            Path directory = Files.createTempDirectory(root, "prog-");
+            program.setDirectory(directory);
+            sandboxUser.traversable(directory);
+            Files.writeString(directory.resolve(toolchain.getSourceFile()), code, StandardCharsets.UTF_8);
+
+            if (!toolchain.isCompiled()) {
+                program.setCompiled(true);
+                return program;
+            }
+
+            if (!compilationCache.isEnabled()) {
+                compile(toolchain, program);
+                return program;
+            }
+
+            String key = compilationCache.key(code, toolchain);
+            CompilationCache.Entry cached = compilationCache.get(key);
+            if (cached != null && !cached.isCompiled()) {
+                program.setCompileOutput(cached.getCompileError());
+                return program;
+            }
+            if (cached != null) {
+                try {
+                    compilationCache.restore(cached, directory);
+                    program.setCompiled(true);
+                    return program;
+                } catch (IOException e) {
+                    // Evicted in the meantime; build it again
+                    log.debug("Cached build {} is gone: {}", key, e.getMessage());
+                }
+            }
+
+            // A timeout says more about the machine's load than about the code, so it is not cached
+            if (compile(toolchain, program)) {
+                compilationCache.put(key, directory, program.isCompiled() ? null : program.getCompileOutput(),
+                        List.of(toolchain.getSourceFile(), COMPILE_LOG));
+            }
+            return program;
+        } catch (IOException e) {
+            release(program);
+            throw new SandboxException("Failed to prepare program: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            release(program);
+            Thread.currentThread().interrupt();
+            throw new SandboxException("Interrupted while compiling", e);
+        }
+    }
+
+    @Override
+    public SandboxResult run(SandboxProgram program, String input, SandboxLimits limits) {
+        StringWriter stdout = new StringWriter();
+        SandboxResult result = run(program, input, limits, stdout);
+        if (result.getOutcome() != SandboxResult.Outcome.COMPILE_ERROR) {
+            result.setStdout(stdout.toString());
+        }
+        return result;
+    }
+
+    @Override
+    public SandboxResult run(SandboxProgram program, String input, SandboxLimits limits, Writer stdout) {
+        if (!program.isCompiled()) {
+            return SandboxResult.compileError(program.getCompileOutput());
+        }
+        try {
+            processSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SandboxException("Interrupted while waiting for a sandbox slot", e);
+        }
+        try {
+            return warmWorkerPool.supports(program, limits)
+                    ? runWarm(program, input, limits, stdout)
+                    : runCold(program, input, limits, stdout);
+        } finally {
+            processSlots.release();
+        }
+    }
+
+    private SandboxResult runCold(SandboxProgram program, String input, SandboxLimits limits, Writer output) {
+        LanguageToolchain toolchain = LanguageToolchain.forLanguage(program.getLanguage());
+        Path runDir = null;
+        Process process = null;
+        try {
+            runDir = Files.createTempDirectory(program.getDirectory(), "run-");
+            sandboxUser.writable(runDir);
+            Path stdin = runDir.resolve("stdin");
+            Path stdout = runDir.resolve("stdout");
+            Path stderr = runDir.resolve("stderr");
+            Path stats = runDir.resolve("stats");
+            Files.writeString(stdin, input != null ? input : "", StandardCharsets.UTF_8);
+
+            ProcessBuilder builder = new ProcessBuilder(buildRunCommand(toolchain, program, limits, stats))
+                    .directory(runDir.toFile())
+                    .redirectInput(stdin.toFile())
+                    .redirectOutput(stdout.toFile())
+                    .redirectError(stderr.toFile());
+            restrictEnvironment(builder.environment(), runDir);
+
+            long start = System.nanoTime();
+            process = builder.start();
+            ResourceSample sample = new ResourceSample();
+            boolean finished = waitFor(process, limits.getTimeLimitMs() + KILL_GRACE_MS, sample);
+            long wallTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (!finished) {
+                kill(process);
+            }
+
+            SandboxResult result = new SandboxResult();
+            result.setExitCode(finished ? process.exitValue() : -1);
+            result.setWallTimeMs(wallTimeMs);
+            result.setCpuTimeMs(sample.cpuTimeMs);
+            result.setPeakMemoryBytes(sample.peakMemoryBytes);
+            if (gnuTimeAvailable) {
+                readGnuTimeStats(stats, result);
+            }
+
+            long outputSize = Files.size(stdout);
+            result.setOutputTruncated(outputSize > limits.getOutputLimitBytes());
+            copyCapped(stdout, limits.getOutputLimitBytes(), output);
+            result.setStderr(readCapped(stderr, MAX_DIAGNOSTIC_BYTES));
+            result.setOutcome(classify(finished, wallTimeMs, result, limits));
+            return result;
+        } catch (IOException e) {
+            throw new SandboxException("Failed to run program: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SandboxException("Interrupted while running program", e);
+        } finally {
+            // An interrupted run (fail-fast cancellation) must not leave the program running
+            // after its process slot is released
+            if (process != null && process.isAlive()) {
+                destroy(process);
+            }
+            deleteRecursively(runDir);
+        }
+    }
+
+    @Override
+    public void release(SandboxProgram program) {
+        warmWorkerPool.release(program);
+        deleteRecursively(program.getDirectory());
+    }
+
+    private SandboxResult runWarm(SandboxProgram program, String input, SandboxLimits limits, Writer stdout) {
+        try {
+            return warmWorkerPool.run(program, input, limits, stdout);
+        } catch (IOException e) {
+            throw new SandboxException("Failed to run program in warm worker: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SandboxException("Interrupted while running program", e);
+        }
+    }
+
+    // Returns false if the compiler timed out rather than finishing either way
+    private boolean compile(LanguageToolchain toolchain, SandboxProgram program)
+            throws IOException, InterruptedException {
+        Path directory = program.getDirectory();
+        Path compileLog = directory.resolve(COMPILE_LOG);
+        ProcessBuilder builder = new ProcessBuilder(buildCompileCommand(toolchain, directory))
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(compileLog.toFile());
+        // Compilers such as go and kotlinc want a writable home for their caches
+        restrictEnvironment(builder.environment(), directory);
+
+        processSlots.acquire();
+        try {
+            sandboxUser.writable(directory);
+            Process process = builder.start();
+            try {
+                if (!process.waitFor(compileTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    kill(process);
+                    program.setCompileOutput("Compilation timed out after " + compileTimeoutMs + " ms");
+                    return false;
+                }
+            } finally {
+                if (process.isAlive()) {
+                    destroy(process);
+                }
+            }
+            if (process.exitValue() != 0) {
+                program.setCompileOutput(readCompileOutput(compileLog, directory));
+            } else {
+                program.setCompiled(true);
+            }
+            return true;
+        } finally {
+            // Runs only need to reach the build, not add to it
+            sandboxUser.traversable(directory);
+            processSlots.release();
+        }
+    }
+
+    private List<String> buildCompileCommand(LanguageToolchain toolchain, Path directory) {
+        long cpuSeconds = TimeUnit.MILLISECONDS.toSeconds(compileTimeoutMs) + 1;
+        long fileBlocks = compileFileLimitMb * 1024 * 1024 / 512;
+        Long addressSpaceBytes = toolchain.isAddressSpaceLimited() ? compileMemoryMb * 1024 * 1024 : null;
+        return sandboxed(expand(toolchain.getCompileCommand(), directory, compileMemoryMb),
+                addressSpaceBytes, cpuSeconds, fileBlocks);
+    }
+
+    // Report paths relative to the program directory so cached output stays accurate
+    private String readCompileOutput(Path compileLog, Path directory) throws IOException {
+        String output = readCapped(compileLog, MAX_COMPILE_OUTPUT_BYTES).replace(directory + "/", "");
+        if (Files.size(compileLog) > MAX_COMPILE_OUTPUT_BYTES) {
+            output += "\n... (compiler output truncated)";
+        }
+        return output;
+    }
+
+    private List<String> buildRunCommand(LanguageToolchain toolchain, SandboxProgram program,
+            SandboxLimits limits, Path stats) {
+        long memoryMb = Math.max(1, limits.getMemoryLimitBytes() / (1024 * 1024));
+        long cpuSeconds = TimeUnit.MILLISECONDS.toSeconds(limits.getTimeLimitMs()) + 1;
+        // RLIMIT_FSIZE is counted in 512 or 1024 byte blocks depending on the shell;
+        // allow some headroom so the output limit check below is what trips first
+        long fileBlocks = limits.getOutputLimitBytes() / 512 + 64;
+
+        Long addressSpaceBytes = toolchain.isAddressSpaceLimited() ? limits.getMemoryLimitBytes() : null;
+
+        List<String> command = new ArrayList<>();
+        // GNU time stays with the judge's user so it can write the stats file
+        if (gnuTimeAvailable) {
+            command.addAll(List.of(GNU_TIME.toString(), "-f", "%e %U %S %M", "-o", stats.toString()));
+        }
+        command.addAll(sandboxed(expand(toolchain.getRunCommand(), program.getDirectory(), memoryMb),
+                addressSpaceBytes, cpuSeconds, fileBlocks));
+        return command;
+    }
+
+    // The command run as the sandbox user by a /bin/sh that sets the rlimits before exec
+    private List<String> sandboxed(List<String> command, Long addressSpaceBytes, long cpuSeconds,
+            long fileBlocks) {
+        StringBuilder script = new StringBuilder();
+        if (addressSpaceBytes != null) {
+            script.append("ulimit -v ").append(addressSpaceBytes / 1024).append(" 2>/dev/null; ");
+        }
+        script.append("ulimit -t ").append(cpuSeconds).append(" 2>/dev/null; ");
+        script.append("ulimit -f ").append(fileBlocks).append(" 2>/dev/null; ");
+        sandboxUser.appendLimits(script);
+        script.append("exec \"$@\"");
+
+        List<String> sandboxed = new ArrayList<>(List.of("/bin/sh", "-c", script.toString(), "sandbox"));
+        sandboxed.addAll(command);
+        return sandboxUser.command(sandboxed);
+    }
+
+    private List<String> expand(List<String> template, Path directory, long memoryMb) {
+        List<String> command = new ArrayList<>(template.size());
+        for (String part : template) {
+            command.add(part.replace("{dir}", directory.toString())
+                    .replace("{memoryMb}", Long.toString(memoryMb)));
+        }
+        return command;
+    }
+
+    private void restrictEnvironment(Map<String, String> environment, Path home) {
+        String path = environment.get("PATH");
+        environment.clear();
+        if (path != null) {
+            environment.put("PATH", path);
+        }
+        environment.put("HOME", home.toString());
+        environment.put("LANG", "C.UTF-8");
+    }
+
+    // Waits for the process, sampling its memory and CPU usage from /proc when
+    // GNU time is not available to report them after exit
+    private boolean waitFor(Process process, long timeoutMs, ResourceSample sample) throws InterruptedException {
+        if (gnuTimeAvailable) {
+            return process.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            sample.update(process.pid());
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return !process.isAlive();
+            }
+            if (process.waitFor(Math.min(TimeUnit.NANOSECONDS.toMillis(remaining) + 1, SAMPLE_INTERVAL_MS),
+                    TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+    }
+
+    private void kill(Process process) throws InterruptedException {
+        destroy(process);
+        process.waitFor(1, TimeUnit.SECONDS);
+    }
+
+    // Descendants first, while they can still be found through the process
+    private void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private SandboxResult.Outcome classify(boolean finished, long wallTimeMs, SandboxResult result,
+            SandboxLimits limits) {
+        int exitCode = result.getExitCode();
+        if (!finished || wallTimeMs > limits.getTimeLimitMs() || exitCode == 128 + SIGXCPU) {
+            return SandboxResult.Outcome.TIME_LIMIT_EXCEEDED;
+        }
+        // Also covers programs killed by the file size rlimit
+        if (result.isOutputTruncated()) {
+            return SandboxResult.Outcome.OUTPUT_LIMIT_EXCEEDED;
+        }
+        if (result.getPeakMemoryBytes() > limits.getMemoryLimitBytes()) {
+            return SandboxResult.Outcome.MEMORY_LIMIT_EXCEEDED;
+        }
+        if (exitCode != 0) {
+            if (exitCode == 128 + SIGKILL || looksLikeOutOfMemory(result.getStderr())) {
+                return SandboxResult.Outcome.MEMORY_LIMIT_EXCEEDED;
+            }
+            return SandboxResult.Outcome.RUNTIME_ERROR;
+        }
+        return SandboxResult.Outcome.OK;
+    }
+
+    private boolean looksLikeOutOfMemory(String stderr) {
+        return stderr != null && (stderr.contains("MemoryError")
+                || stderr.contains("OutOfMemoryError")
+                || stderr.contains("bad_alloc")
+                || stderr.contains("heap out of memory")
+                || stderr.contains("memory allocation of"));
+    }
+
+    // GNU time writes "elapsed user system maxrss" as its last line
+    private void readGnuTimeStats(Path stats, SandboxResult result) {
+        try {
+            if (!Files.exists(stats)) {
+                return;
+            }
+            List<String> lines = Files.readAllLines(stats, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                return;
+            }
+            String[] fields = lines.get(lines.size() - 1).trim().split("\\s+");
+            if (fields.length < 4) {
+                return;
+            }
+            double userSeconds = Double.parseDouble(fields[1]);
+            double systemSeconds = Double.parseDouble(fields[2]);
+            result.setCpuTimeMs(Math.round((userSeconds + systemSeconds) * 1000));
+            result.setPeakMemoryBytes(Long.parseLong(fields[3]) * 1024);
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Could not read resource usage from {}: {}", stats, e.getMessage());
+        }
+    }
+
+    private static String readCapped(Path file, long maxBytes) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] bytes = in.readNBytes((int) Math.min(maxBytes, Integer.MAX_VALUE - 8));
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Decodes the first maxBytes of the file into the writer a buffer at a time
+    private static void copyCapped(Path file, long maxBytes, Writer out) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(COPY_BUFFER_BYTES);
+        // UTF-8 never decodes to more chars than it has bytes
+        CharBuffer chars = CharBuffer.allocate(COPY_BUFFER_BYTES);
+        long remaining = maxBytes;
+        try (InputStream in = Files.newInputStream(file)) {
+            while (remaining > 0) {
+                int read = in.read(bytes.array(), bytes.position(), (int) Math.min(bytes.remaining(), remaining));
+                if (read < 0) {
+                    break;
+                }
+                remaining -= read;
+                bytes.position(bytes.position() + read);
+                bytes.flip();
+                decoder.decode(bytes, chars, false);
+                out.write(chars.array(), 0, chars.position());
+                chars.clear();
+                bytes.compact();
+            }
+        }
+        bytes.flip();
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+        out.write(chars.array(), 0, chars.position());
+    }
+
+    private static void deleteRecursively(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.debug("Could not delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not clean up {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Peak RSS and CPU time of a running process, read from /proc/[pid].
+     */
+    private static class ResourceSample {
+        private long peakMemoryBytes;
+        private long cpuTimeMs;
+
+        void update(long pid) {
+            Path procDir = Paths.get("/proc", Long.toString(pid));
+            try {
+                for (String line : Files.readAllLines(procDir.resolve("status"), StandardCharsets.UTF_8)) {
+                    if (line.startsWith("VmHWM:")) {
+                        long kb = Long.parseLong(line.substring(6).replace("kB", "").trim());
+                        peakMemoryBytes = Math.max(peakMemoryBytes, kb * 1024);
+                        break;
+                    }
+                }
+                // Fields after the command name: state is field 3, utime and stime are 14 and 15
+                String stat = Files.readString(procDir.resolve("stat"), StandardCharsets.UTF_8);
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+                cpuTimeMs = Math.max(cpuTimeMs, ticks * 1000 / CLOCK_TICKS_PER_SECOND);
+            } catch (IOException | RuntimeException e) {
+                // The process exited between samples or /proc is unavailable
+            }
+        }
+    }
+}
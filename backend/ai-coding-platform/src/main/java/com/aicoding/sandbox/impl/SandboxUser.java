@@ -0,0 +1,99 @@
+package com.aicoding.sandbox.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The account user programs and warm workers run as. With
+ * judge.sandbox.run-as-user set they are started through setpriv under that
+ * user and its same-named group, which needs a judge running as root or with
+ * CAP_SETUID, CAP_SETGID and CAP_KILL, and are capped with ulimit -u at
+ * max-processes processes and threads. The cap counts everything the user runs
+ * at once across submissions, so it is only applied with a dedicated user;
+ * otherwise it would count the judge's own threads as well.
+ *
+ * The sandbox directories are opened up just far enough for that user: the
+ * work directories can be traversed but not listed, so one program cannot look
+ * up another one's code, and only scratch directories are writable.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.type", havingValue = "process")
+public class SandboxUser {
+
+    private static final String SETPRIV = "setpriv";
+    private static final Set<PosixFilePermission> TRAVERSABLE = PosixFilePermissions.fromString("rwx--x--x");
+    private static final Set<PosixFilePermission> READABLE = PosixFilePermissions.fromString("rwxr-xr-x");
+    private static final Set<PosixFilePermission> WRITABLE = PosixFilePermissions.fromString("rwxrwxrwx");
+
+    @Value("${judge.sandbox.run-as-user:}")
+    private String runAsUser;
+
+    @Value("${judge.sandbox.max-processes:256}")
+    private int maxProcesses;
+
+    @PostConstruct
+    public void init() {
+        if (isDedicated()) {
+            log.info("Sandboxed programs run as {} with at most {} processes", runAsUser, maxProcesses);
+        } else {
+            log.warn("Sandboxed programs run as the judge's own user; set judge.sandbox.run-as-user to isolate them");
+        }
+    }
+
+    public boolean isDedicated() {
+        return runAsUser != null && !runAsUser.isBlank();
+    }
+
+    // Adds the process cap to a /bin/sh script that sets the rlimits before exec
+    public void appendLimits(StringBuilder script) {
+        if (isDedicated()) {
+            // -u in bash, -p in dash
+            script.append("{ ulimit -u ").append(maxProcesses).append(" || ulimit -p ").append(maxProcesses)
+                    .append("; } 2>/dev/null; ");
+        }
+    }
+
+    // The command as run by the sandbox user; setpriv execs it, so the pid stays the same
+    public List<String> command(List<String> command) {
+        if (!isDedicated()) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>(command.size() + 4);
+        wrapped.addAll(List.of(SETPRIV, "--reuid=" + runAsUser, "--regid=" + runAsUser, "--clear-groups"));
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    public void traversable(Path directory) throws IOException {
+        permit(directory, TRAVERSABLE);
+    }
+
+    public void readable(Path directory) throws IOException {
+        permit(directory, READABLE);
+    }
+
+    public void writable(Path directory) throws IOException {
+        permit(directory, WRITABLE);
+    }
+
+    // Directories stay private to the judge unless programs run as another user
+    private void permit(Path directory, Set<PosixFilePermission> permissions) throws IOException {
+        if (isDedicated()) {
+            Files.setPosixFilePermissions(directory, permissions);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.aicoding.sandbox.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.aicoding.model.ProgrammingLanguage;
+import com.aicoding.sandbox.SandboxException;
+import com.aicoding.sandbox.SandboxExecutor;
+import com.aicoding.sandbox.SandboxLimits;
+import com.aicoding.sandbox.SandboxProgram;
+import com.aicoding.sandbox.SandboxResult;
+
+/**
+ * Fabricates program output without running anything. Useful for local
+ * development on machines without the language toolchains installed, and the
+ * default until judge.sandbox.type=process is set explicitly.
+ */
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.type", havingValue = "simulated", matchIfMissing = true)
+public class SimulatedSandboxExecutor implements SandboxExecutor {
+
+    @Override
+    public SandboxProgram prepare(String code, ProgrammingLanguage language) {
+        SandboxProgram program = new SandboxProgram();
+        program.setLanguage(language);
+        program.setCode(code);
+        program.setCompiled(true);
+        return program;
+    }
+
+    @Override
+    public SandboxResult run(SandboxProgram program, String input, SandboxLimits limits) {
+        SandboxResult result = new SandboxResult();
+        try {
+            result.setStdout(simulateCodeExecution(program.getCode(), program.getLanguage(), input));
+            result.setOutcome(SandboxResult.Outcome.OK);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SandboxException("Interrupted while running program", e);
+        } catch (Exception e) {
+            result.setOutcome(SandboxResult.Outcome.RUNTIME_ERROR);
+            result.setExitCode(1);
+            result.setStderr(e.getMessage());
+        }
+        
+        // Simulate execution time and memory usage
+        result.setWallTimeMs((long) (Math.random() * 1000)); // Random time between 0-1000ms
+        result.setCpuTimeMs(result.getWallTimeMs());
+        result.setPeakMemoryBytes((long) (Math.random() * 10 * 1024 * 1024)); // Random memory between 0-10MB
+        return result;
+    }
+
+    @Override
+    public void release(SandboxProgram program) {
+        // Nothing to clean up
+    }
+    
+    // Derives a fake output from the input and a few markers in the code
+    private String simulateCodeExecution(String code, ProgrammingLanguage language, String input) throws Exception {
+        // Simulate execution delay
+        TimeUnit.MILLISECONDS.sleep((long) (Math.random() * 500));
+        
+        // This is just a placeholder implementation
+        // In a real implementation, this would execute the code and return the actual output
+        
+        // For demonstration purposes, we'll return a simple output based on the input
+        // In a real implementation, this would be replaced with actual code execution
+        
+        // Simulate some basic processing based on the language and input
+        switch (language) {
+            case JAVA:
+                // Simulate Java execution
+                if (code.contains("System.out.println")) {
+                    return input.trim() + " processed by Java";
+                } else if (code.contains("Exception")) {
+                    throw new Exception("Java runtime error");
+                }
+                break;
+                
+            case PYTHON:
+                // Simulate Python execution
+                if (code.contains("print")) {
+                    return input.trim() + " processed by Python";
+                } else if (code.contains("raise")) {
+                    throw new Exception("Python runtime error");
+                }
+                break;
+                
+            case JAVASCRIPT:
+                // Simulate JavaScript execution
+                if (code.contains("console.log")) {
+                    return input.trim() + " processed by JavaScript";
+                } else if (code.contains("throw")) {
+                    throw new Exception("JavaScript runtime error");
+                }
+                break;
+                
+            default:
+                // Default simulation
+                return input.trim() + " processed";
+        }
+        
+        return input.trim() + " processed";
+    }
+}
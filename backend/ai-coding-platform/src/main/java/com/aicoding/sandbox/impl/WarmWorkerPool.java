@@ -0,0 +1,462 @@
+package com.aicoding.sandbox.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import com.aicoding.model.ProgrammingLanguage;
+import com.aicoding.sandbox.SandboxLimits;
+import com.aicoding.sandbox.SandboxProgram;
+import com.aicoding.sandbox.SandboxResult;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps pre-started Python worker processes so a submission does not pay
+ * interpreter startup once per test case. A worker is leased to a
+ * single program: it loads the code once and then executes it once per test
+ * case input sent over its stdin pipe. Workers are never shared between
+ * programs; they are destroyed when the program is released, after
+ * max-runs-per-worker runs, or as soon as a run crashes or times out.
+ *
+ * Workers are started with the default memory limit, so problems with a custom
+ * limit fall back to one process per run. They run as the {@link SandboxUser}.
+ *
+ * Java programs always run one process per run: a JVM cannot give each run its
+ * own fds 0, 1 and 2, so code reading FileDescriptor.in or writing
+ * FileDescriptor.out would hit the worker protocol, and threads the program
+ * leaves running would outlive the run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.type", havingValue = "process")
+public class WarmWorkerPool {
+
+    private static final String PYTHON_HARNESS = "python_worker.py";
+    private static final long KILL_GRACE_MS = 100;
+    private static final int MAX_FRAME_BYTES = 64 * 1024 * 1024;
+
+    @Autowired
+    private SandboxUser sandboxUser;
+
+    @Value("${judge.sandbox.warm-pool.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.sandbox.warm-pool.size:2}")
+    private int poolSize;
+
+    @Value("${judge.sandbox.warm-pool.max-runs-per-worker:50}")
+    private int maxRunsPerWorker;
+
+    @Value("${judge.sandbox.work-dir:${java.io.tmpdir}/ai-coding-sandbox}")
+    private String workDir;
+
+    @Value("${judge.sandbox.memory-limit-mb:256}")
+    private long memoryLimitMb;
+
+    private final Map<ProgrammingLanguage, List<String>> workerCommands = new EnumMap<>(ProgrammingLanguage.class);
+    private final Map<ProgrammingLanguage, BlockingQueue<WarmWorker>> idleWorkers =
+            new EnumMap<>(ProgrammingLanguage.class);
+    private final Map<Path, Queue<WarmWorker>> programWorkers = new ConcurrentHashMap<>();
+    private final Map<Path, String> loadFailures = new ConcurrentHashMap<>();
+
+    private Path root;
+    private ExecutorService refiller;
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        refiller = Executors.newSingleThreadExecutor(daemon("warm-worker-refill"));
+        watchdog = Executors.newSingleThreadScheduledExecutor(daemon("warm-worker-watchdog"));
+
+        Path harness;
+        try {
+            root = Files.createDirectories(Paths.get(workDir, "warm"));
+            harness = Files.createDirectories(root.resolve("harness"));
+            sandboxUser.traversable(root.getParent());
+            sandboxUser.traversable(root);
+            sandboxUser.readable(harness);
+            workerCommands.put(ProgrammingLanguage.PYTHON, pythonCommand(harness));
+        } catch (IOException e) {
+            log.warn("Warm workers disabled: {}", e.getMessage());
+            return;
+        }
+
+        for (ProgrammingLanguage language : List.copyOf(workerCommands.keySet())) {
+            idleWorkers.put(language, new LinkedBlockingQueue<>());
+            try {
+                idleWorkers.get(language).offer(spawn(language));
+            } catch (IOException e) {
+                log.warn("Warm {} workers disabled: {}", language, e.getMessage());
+                workerCommands.remove(language);
+                idleWorkers.remove(language);
+                continue;
+            }
+            refiller.execute(() -> topUp(language));
+        }
+        log.info("Warm workers enabled for {} (pool size {})", workerCommands.keySet(), poolSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        refiller.shutdownNow();
+        watchdog.shutdownNow();
+        idleWorkers.values().forEach(queue -> queue.forEach(WarmWorker::destroy));
+        programWorkers.values().forEach(queue -> queue.forEach(WarmWorker::destroy));
+    }
+
+    public boolean supports(SandboxProgram program, SandboxLimits limits) {
+        return enabled
+                && workerCommands.containsKey(program.getLanguage())
+                && limits.getMemoryLimitBytes() == memoryLimitMb * 1024 * 1024;
+    }
+
+    public SandboxResult run(SandboxProgram program, String input, SandboxLimits limits, Writer stdout)
+            throws IOException, InterruptedException {
+        Path directory = program.getDirectory();
+        String loadFailure = loadFailures.get(directory);
+        if (loadFailure != null) {
+            return loadFailed(loadFailure);
+        }
+
+        WarmWorker worker = acquire(program);
+        if (worker == null) {
+            return loadFailed(loadFailures.get(directory));
+        }
+
+        boolean reusable = false;
+        try {
+            SandboxResult result = worker.run(input, limits, stdout);
+            reusable = worker.isAlive() && worker.runs < maxRunsPerWorker;
+            return result;
+        } finally {
+            if (!reusable || !returnToProgram(directory, worker)) {
+                worker.destroy();
+            }
+        }
+    }
+
+    public void release(SandboxProgram program) {
+        if (program.getDirectory() == null) {
+            return;
+        }
+        loadFailures.remove(program.getDirectory());
+        Queue<WarmWorker> workers = programWorkers.remove(program.getDirectory());
+        if (workers != null) {
+            workers.forEach(WarmWorker::destroy);
+        }
+    }
+
+    // Reuses a worker that already loaded this program, otherwise takes a fresh
+    // one from the pool and loads the program into it. Returns null if loading failed.
+    private WarmWorker acquire(SandboxProgram program) throws IOException, InterruptedException {
+        ProgrammingLanguage language = program.getLanguage();
+        Queue<WarmWorker> own = programWorkers.computeIfAbsent(program.getDirectory(),
+                key -> new ConcurrentLinkedQueue<>());
+        WarmWorker worker = own.poll();
+        if (worker != null) {
+            return worker;
+        }
+
+        worker = idleWorkers.get(language).poll();
+        refiller.execute(() -> topUp(language));
+        if (worker == null || !worker.isAlive()) {
+            if (worker != null) {
+                worker.destroy();
+            }
+            worker = spawn(language);
+        }
+
+        String target = language == ProgrammingLanguage.PYTHON
+                ? program.getDirectory().resolve("main.py").toString()
+                : program.getDirectory().toString();
+        String error;
+        try {
+            error = worker.load(target);
+        } catch (IOException e) {
+            worker.destroy();
+            throw e;
+        }
+        if (error != null) {
+            worker.destroy();
+            loadFailures.put(program.getDirectory(), error);
+            return null;
+        }
+        return worker;
+    }
+
+    private boolean returnToProgram(Path directory, WarmWorker worker) {
+        // The program may have been released while this run was in flight
+        return programWorkers.computeIfPresent(directory, (key, queue) -> {
+            queue.offer(worker);
+            return queue;
+        }) != null;
+    }
+
+    private void topUp(ProgrammingLanguage language) {
+        BlockingQueue<WarmWorker> queue = idleWorkers.get(language);
+        while (queue.size() < poolSize && !Thread.currentThread().isInterrupted()) {
+            try {
+                queue.offer(spawn(language));
+            } catch (IOException e) {
+                log.warn("Could not start warm {} worker: {}", language, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private WarmWorker spawn(ProgrammingLanguage language) throws IOException {
+        Path scratch = Files.createTempDirectory(root, language.name().toLowerCase() + "-");
+        sandboxUser.writable(scratch);
+        StringBuilder script = new StringBuilder();
+        if (language == ProgrammingLanguage.PYTHON) {
+            script.append("ulimit -v ").append(memoryLimitMb * 1024).append(" 2>/dev/null; ");
+        }
+        sandboxUser.appendLimits(script);
+        script.append("exec \"$@\"");
+
+        List<String> command = new ArrayList<>(List.of("/bin/sh", "-c", script.toString(), "sandbox"));
+        command.addAll(workerCommands.get(language));
+        ProcessBuilder builder = new ProcessBuilder(sandboxUser.command(command))
+                .directory(scratch.toFile())
+                .redirectError(ProcessBuilder.Redirect.DISCARD);
+        String path = builder.environment().get("PATH");
+        builder.environment().clear();
+        if (path != null) {
+            builder.environment().put("PATH", path);
+        }
+        builder.environment().put("HOME", scratch.toString());
+        builder.environment().put("LANG", "C.UTF-8");
+        try {
+            return new WarmWorker(builder.start(), scratch);
+        } catch (IOException e) {
+            deleteQuietly(scratch);
+            throw e;
+        }
+    }
+
+    private List<String> pythonCommand(Path harness) throws IOException {
+        Path script = installHarness(harness, PYTHON_HARNESS);
+        return List.of("python3", script.toString());
+    }
+
+    private Path installHarness(Path directory, String name) throws IOException {
+        Path target = directory.resolve(name);
+        try (InputStream in = new ClassPathResource("sandbox/" + name).getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    private SandboxResult loadFailed(String error) {
+        SandboxResult result = new SandboxResult();
+        result.setOutcome(SandboxResult.Outcome.RUNTIME_ERROR);
+        result.setStderr(error);
+        result.setExitCode(1);
+        return result;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * One worker process and its framed stdin/stdout protocol. Frames are a
+     * 4-byte big-endian length followed by that many bytes.
+     */
+    private class WarmWorker {
+        private final Process process;
+        private final Path scratch;
+        private final DataOutputStream requests;
+        private final DataInputStream responses;
+        private volatile boolean timedOut;
+        // Set once the protocol is out of sync or the process was killed
+        private volatile boolean broken;
+        private int runs;
+
+        WarmWorker(Process process, Path scratch) {
+            this.process = process;
+            this.scratch = scratch;
+            this.requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        }
+
+        boolean isAlive() {
+            return !broken && process.isAlive();
+        }
+
+        // Returns null when the program loaded, otherwise the error to report
+        String load(String target) throws IOException {
+            writeFrame("LOAD");
+            writeFrame(target);
+            requests.flush();
+            String status = readString();
+            String error = readString();
+            return "OK".equals(status) ? null : error;
+        }
+
+        SandboxResult run(String input, SandboxLimits limits, Writer output) throws InterruptedException {
+            runs++;
+            resetPeakMemory();
+            ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+                timedOut = true;
+                broken = true;
+                process.destroyForcibly();
+            }, limits.getTimeLimitMs() + KILL_GRACE_MS, TimeUnit.MILLISECONDS);
+
+            SandboxResult result = new SandboxResult();
+            long start = System.nanoTime();
+            String status;
+            try {
+                writeFrame("RUN");
+                writeFrame(input != null ? input : "");
+                writeFrame(Long.toString(limits.getOutputLimitBytes()));
+                requests.flush();
+
+                status = readString();
+                byte[] stdout = readFrame();
+                result.setOutputTruncated(stdout.length > limits.getOutputLimitBytes());
+                int length = (int) Math.min(stdout.length, limits.getOutputLimitBytes());
+                new InputStreamReader(new ByteArrayInputStream(stdout, 0, length), StandardCharsets.UTF_8)
+                        .transferTo(output);
+                result.setStderr(readString());
+                result.setCpuTimeMs(Long.parseLong(readString().trim()));
+            } catch (IOException | NumberFormatException e) {
+                status = "CRASH";
+                broken = true;
+                result.setStderr(timedOut ? "" : "Worker process terminated unexpectedly");
+            } finally {
+                timeout.cancel(false);
+            }
+            result.setWallTimeMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            result.setPeakMemoryBytes(readPeakMemory());
+
+            // System.exit() in user code ends the worker after it reported the output
+            if ("EXIT".equals(status) && process.waitFor(1, TimeUnit.SECONDS)) {
+                result.setExitCode(process.exitValue());
+            } else {
+                result.setExitCode("OK".equals(status) ? 0 : 1);
+            }
+            result.setOutcome(classify(status, result, limits));
+            return result;
+        }
+
+        private SandboxResult.Outcome classify(String status, SandboxResult result, SandboxLimits limits) {
+            if (timedOut || result.getWallTimeMs() > limits.getTimeLimitMs()) {
+                return SandboxResult.Outcome.TIME_LIMIT_EXCEEDED;
+            }
+            if (result.isOutputTruncated()) {
+                return SandboxResult.Outcome.OUTPUT_LIMIT_EXCEEDED;
+            }
+            if ("MEMORY".equals(status) || result.getPeakMemoryBytes() > limits.getMemoryLimitBytes()) {
+                return SandboxResult.Outcome.MEMORY_LIMIT_EXCEEDED;
+            }
+            if (result.getExitCode() != 0) {
+                return SandboxResult.Outcome.RUNTIME_ERROR;
+            }
+            return SandboxResult.Outcome.OK;
+        }
+
+        // Clears VmHWM so the peak reported for this run is not an earlier run's
+        private void resetPeakMemory() {
+            try {
+                Files.writeString(Paths.get("/proc", Long.toString(process.pid()), "clear_refs"), "5");
+            } catch (IOException | RuntimeException e) {
+                // Older kernels; the peak is then the worker's lifetime maximum
+            }
+        }
+
+        private long readPeakMemory() {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(process.pid()), "status"))) {
+                    if (line.startsWith("VmHWM:")) {
+                        return Long.parseLong(line.substring(6).replace("kB", "").trim()) * 1024;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // The worker already exited
+            }
+            return 0;
+        }
+
+        private void writeFrame(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            requests.writeInt(bytes.length);
+            requests.write(bytes);
+        }
+
+        private String readString() throws IOException {
+            return new String(readFrame(), StandardCharsets.UTF_8);
+        }
+
+        private byte[] readFrame() throws IOException {
+            int length = responses.readInt();
+            if (length < 0 || length > MAX_FRAME_BYTES) {
+                throw new IOException("Malformed frame from worker");
+            }
+            byte[] data = new byte[length];
+            responses.readFully(data);
+            return data;
+        }
+
+        void destroy() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+            deleteQuietly(scratch);
+        }
+    }
+}
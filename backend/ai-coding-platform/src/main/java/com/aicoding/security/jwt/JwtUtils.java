@@ -10,8 +10,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Component
 public class JwtUtils {
@@ -23,6 +29,22 @@ public class JwtUtils {
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    @Value("${jwt.verified-cache.size:10000}")
+    private int verifiedCacheSize;
+
+    // Built on first use; a misconfigured secret fails the same way on every call
+    private volatile Key key;
+
+    private volatile JwtParser parser;
+
+    // Claims of recently verified tokens by token digest, least recently used evicted first
+    private final LinkedHashMap<String, Claims> verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+            return size() > verifiedCacheSize;
+        }
+    };
+
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
@@ -35,18 +57,60 @@ public class JwtUtils {
     }
 
     private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        Key current = key;
+        if (current == null) {
+            current = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+            key = current;
+        }
+        return current;
+    }
+
+    private JwtParser parser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parserBuilder().setSigningKey(key()).build();
+            parser = current;
+        }
+        return current;
     }
 
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parser().parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return getVerifiedClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies the token's signature and expiry in a single parse and returns
+     * its claims, or null if the token is invalid. Tokens verified recently are
+     * recognised by digest until they expire. The returned claims are shared
+     * and must not be modified.
+     */
+    public Claims getVerifiedClaims(String authToken) {
+        String digest = authToken != null ? digest(authToken) : null;
+        if (digest != null) {
+            synchronized (verifiedTokens) {
+                Claims claims = verifiedTokens.get(digest);
+                if (claims != null) {
+                    if (claims.getExpiration().after(new Date())) {
+                        return claims;
+                    }
+                    // Expired: parse again so it is rejected and logged as before
+                    verifiedTokens.remove(digest);
+                }
+            }
+        }
+
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            Claims claims = parser().parseClaimsJws(authToken).getBody();
+            if (claims.getExpiration() != null && verifiedCacheSize > 0) {
+                synchronized (verifiedTokens) {
+                    verifiedTokens.put(digest, claims);
+                }
+            }
+            return claims;
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -57,6 +121,16 @@ public class JwtUtils {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    // SHA-256 of the token, so the cache holds no usable credentials
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
\ No newline at end of file
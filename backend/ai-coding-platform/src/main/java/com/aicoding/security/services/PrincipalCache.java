@@ -0,0 +1,68 @@
+package com.aicoding.security.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, time-limited cache of authenticated principals by username, so
+ * requests carrying a JWT do not load the user and its roles every time.
+ * Entries are dropped when the user row changes (see {@link UserChangeListener})
+ * and in any case after the TTL, which bounds how long a change made outside
+ * JPA can go unnoticed.
+ */
+@Component
+public class PrincipalCache {
+
+    @Value("${security.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    // Access-ordered, so the least recently used principal is evicted first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private record Entry(UserDetailsImpl principal, long expiresAtNanos) {
+    }
+
+    public synchronized UserDetailsImpl get(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos() > 0) {
+            entries.remove(username);
+            return null;
+        }
+        return entry.principal();
+    }
+
+    public synchronized void put(UserDetailsImpl principal) {
+        if (ttlSeconds > 0) {
+            entries.put(principal.getUsername(),
+                    new Entry(principal, System.nanoTime() + ttlSeconds * 1_000_000_000L));
+        }
+    }
+
+    public synchronized void evictUser(Long userId) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().principal().getId().equals(userId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void evictAll() {
+        entries.clear();
+    }
+}
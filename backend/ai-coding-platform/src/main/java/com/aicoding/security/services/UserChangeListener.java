@@ -0,0 +1,38 @@
+package com.aicoding.security.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.aicoding.model.User;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Drops cached principals when a user's roles, flags or name change or the
+ * user is deleted. Evicts again after commit, so a request racing the
+ * transaction cannot re-cache the old state.
+ */
+@Component
+public class UserChangeListener {
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        Long userId = user.getId();
+        principalCache.evictUser(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principalCache.evictUser(userId);
+                }
+            });
+        }
+    }
+}
@@ -14,6 +14,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    PrincipalCache principalCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -22,4 +25,17 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return UserDetailsImpl.build(user);
     }
+
+    /**
+     * Like {@link #loadUserByUsername} but served from the principal cache when
+     * possible. Meant for authenticating bearer tokens, not for password checks.
+     */
+    public UserDetailsImpl loadCachedUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetailsImpl principal = principalCache.get(username);
+        if (principal == null) {
+            principal = (UserDetailsImpl) loadUserByUsername(username);
+            principalCache.put(principal);
+        }
+        return principal;
+    }
 }
\ No newline at end of file
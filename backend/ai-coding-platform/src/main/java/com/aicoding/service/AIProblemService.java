@@ -2,14 +2,23 @@ package com.aicoding.service;
 
 import com.aicoding.dto.response.AIProblemResponse;
 import com.aicoding.model.AIProblem;
+import com.aicoding.validation.SolutionResult;
 
 import java.util.List;
-import java.util.Map;
 
 public interface AIProblemService {
     List<AIProblem> getAllActiveProblems();
+    /**
+     * Entity tag of the active catalog as returned by {@link #getAllActiveProblems()},
+     * or null when it is not served from the database
+     */
+    String getActiveProblemsETag();
     AIProblem getProblemById(String id);
     AIProblemResponse getProblemWithTestCases(String problemId);
-    Map<String, Object> validateSolution(String problemId, String code);
+    SolutionResult validateSolution(String problemId, String code);
     void initializeDefaultProblems();
+    /**
+     * Drops the in-memory catalog after the problem collection changed
+     */
+    void evictCatalog();
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.aicoding.service;
+
+public interface JudgeQueueService {
+    /**
+     * Queues a persisted PENDING submission for asynchronous evaluation
+     * 
+     * @param submissionId The ID of the submission to judge
+     * @throws com.aicoding.exception.JudgeQueueFullException if the queue has no free capacity
+     */
+    void enqueue(Long submissionId);
+}
@@ -0,0 +1,26 @@
+package com.aicoding.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.aicoding.model.ProblemStats;
+import com.aicoding.model.Submission;
+import com.aicoding.model.UserStats;
+
+public interface StatisticsService {
+
+    /**
+     * Adds a submission that reached a terminal status to the problem and user
+     * statistics. Counting happens asynchronously and at most once per submission.
+     */
+    void recordSubmission(Long submissionId);
+
+    /**
+     * Takes a submission that is about to be deleted out of the statistics.
+     */
+    void removeSubmission(Submission submission);
+
+    UserStats getUserStats(Long userId);
+
+    Map<Long, ProblemStats> getProblemStats(Collection<Long> problemIds);
+}
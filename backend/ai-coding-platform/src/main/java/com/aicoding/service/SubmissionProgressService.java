@@ -0,0 +1,34 @@
+package com.aicoding.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.aicoding.dto.response.TestResultResponse;
+import com.aicoding.model.Submission;
+
+public interface SubmissionProgressService {
+
+    /**
+     * Opens a server-sent event stream for a submission. The current status is
+     * sent right away; the stream completes once the submission is judged.
+     *
+     * @param submissionId The ID of the submission to follow
+     * @throws com.aicoding.exception.ResourceNotFoundException if the submission does not exist
+     */
+    SseEmitter subscribe(Long submissionId);
+
+    /**
+     * Whether anyone follows the submission, so publishers can skip building events
+     */
+    boolean hasSubscribers(Long submissionId);
+
+    /**
+     * Sends a "test-result" event for a test case that finished judging
+     */
+    void publishTestResult(Long submissionId, int completedTestCases, int totalTestCases,
+            TestResultResponse testResult);
+
+    /**
+     * Sends a "status" event and closes the streams once the status is final
+     */
+    void publishStatus(Submission submission);
+}
@@ -10,9 +10,10 @@ import com.aicoding.model.SubmissionStatus;
 public interface SubmissionService {
     SubmissionResponse submitSolution(SubmissionRequest submissionRequest);
     SubmissionResponse getSubmissionById(Long id);
-    Page<SubmissionResponse> getUserSubmissions(Long userId, Pageable pageable);
-    Page<SubmissionResponse> getProblemSubmissions(Long problemId, Pageable pageable);
-    Page<SubmissionResponse> getUserProblemSubmissions(Long userId, Long problemId, Pageable pageable);
-    Page<SubmissionResponse> getUserProblemSubmissionsByStatus(Long userId, Long problemId, SubmissionStatus status, Pageable pageable);
+    // Pages leave out code and test results unless full is set
+    Page<SubmissionResponse> getUserSubmissions(Long userId, Pageable pageable, boolean full);
+    Page<SubmissionResponse> getProblemSubmissions(Long problemId, Pageable pageable, boolean full);
+    Page<SubmissionResponse> getUserProblemSubmissions(Long userId, Long problemId, Pageable pageable, boolean full);
+    Page<SubmissionResponse> getUserProblemSubmissionsByStatus(Long userId, Long problemId, SubmissionStatus status, Pageable pageable, boolean full);
     void deleteSubmission(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.aicoding.service;
+
+import java.util.List;
+import java.util.Map;
+
+import com.aicoding.model.Submission;
+import com.aicoding.model.TestResult;
+
+public interface TestResultStorageService {
+
+    /**
+     * Saves the submission together with its test results, as one row per test
+     * case or packed into one row depending on judge.results.storage-mode.
+     * In compact mode the returned submission's testResults stay empty.
+     */
+    Submission save(Submission submission, List<TestResult> testResults);
+
+    /**
+     * @return The submission's test results in test case order, from whichever
+     *         storage they were written to
+     */
+    List<TestResult> findBySubmission(Submission submission);
+
+    /**
+     * Test results of a page of submissions in a fixed number of queries
+     *
+     * @return Each submission's test results in test case order, by submission id
+     */
+    Map<Long, List<TestResult>> findBySubmissions(List<Submission> submissions);
+
+    void deleteBySubmissionId(Long submissionId);
+}
@@ -7,6 +7,10 @@ import com.aicoding.model.User;
 
 public interface UserService {
     User findById(Long id);
+    /**
+     * Returns a lazy reference to the user without loading it, for use as an association
+     */
+    User getReference(Long id);
     User findByUsername(String username);
     User findByEmail(String email);
     List<User> findAll();
@@ -0,0 +1,33 @@
+package com.aicoding.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.MongoMappingEvent;
+import org.springframework.stereotype.Component;
+
+import com.aicoding.service.AIProblemService;
+
+/**
+ * Evicts the cached AI problem catalog whenever the collection is written,
+ * whether through saves in DataInitializationService and TestController or
+ * bulk deletes. Matches on the collection name because repository deleteAll
+ * does not carry the entity type.
+ */
+@Component
+public class AIProblemCatalogListener implements ApplicationListener<MongoMappingEvent<?>> {
+
+    private static final String COLLECTION = "ai_problems";
+
+    @Autowired
+    private AIProblemService aiProblemService;
+
+    @Override
+    public void onApplicationEvent(MongoMappingEvent<?> event) {
+        if ((event instanceof AfterSaveEvent || event instanceof AfterDeleteEvent)
+                && COLLECTION.equals(event.getCollectionName())) {
+            aiProblemService.evictCatalog();
+        }
+    }
+}
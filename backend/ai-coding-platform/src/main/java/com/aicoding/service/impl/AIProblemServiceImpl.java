@@ -6,9 +6,14 @@ import com.aicoding.model.AIProblem;
 import com.aicoding.model.Difficulty;
 import com.aicoding.repository.AIProblemRepository;
 import com.aicoding.service.AIProblemService;
+import com.aicoding.util.CodeHash;
+import com.aicoding.validation.SolutionResult;
 import com.aicoding.validation.ValidationFramework;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -27,22 +32,58 @@ public class AIProblemServiceImpl implements AIProblemService {
     @Autowired
     private ValidationFramework validationFramework;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${ai.validation.result-cache.size:1000}")
+    private int resultCacheSize;
+    
+    // Least recently used validation results by problem, test case contents and normalized code
+    private final Map<String, SolutionResult> resultCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, SolutionResult>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SolutionResult> eldest) {
+                    return size() > resultCacheSize;
+                }
+            });
+    
+    // The active catalog is small and rarely changes, so it is read once and served from memory
+    // until a write to the collection evicts it (see AIProblemCatalogListener)
+    private volatile Catalog catalog;
+    
+    // Bumped on eviction so a load that raced a write does not install stale data
+    private long catalogGeneration;
+    
+    private record Catalog(List<AIProblem> active, Map<String, AIProblem> byId,
+            Map<String, List<AIProblem>> byCategory, Map<Difficulty, List<AIProblem>> byDifficulty,
+            Map<String, List<AIProblem>> byTag, String etag) {
+    }
+    
     @Override
     public List<AIProblem> getAllActiveProblems() {
         try {
-            return aiProblemRepository.findByActiveTrue();
+            return catalog().active();
         } catch (Exception e) {
             log.warn("MongoDB not available, falling back to config: {}", e.getMessage());
             return getProblemsFromConfig();
         }
     }
     
+    @Override
+    public String getActiveProblemsETag() {
+        try {
+            return catalog().etag();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
     @Override
     public AIProblem getProblemById(String id) {
         try {
-            Optional<AIProblem> problem = aiProblemRepository.findByIdAndActiveTrue(id);
-            if (problem.isPresent()) {
-                return problem.get();
+            AIProblem problem = catalog().byId().get(id);
+            if (problem != null) {
+                return problem;
             }
         } catch (Exception e) {
             log.warn("MongoDB not available, falling back to config: {}", e.getMessage());
@@ -55,9 +96,8 @@ public class AIProblemServiceImpl implements AIProblemService {
     @Override
     public AIProblemResponse getProblemWithTestCases(String problemId) {
         try {
-            Optional<AIProblem> problemOpt = aiProblemRepository.findByIdAndActiveTrue(problemId);
-            if (problemOpt.isPresent()) {
-                AIProblem problem = problemOpt.get();
+            AIProblem problem = catalog().byId().get(problemId);
+            if (problem != null) {
                 return convertToResponse(problem);
             }
         } catch (Exception e) {
@@ -69,11 +109,10 @@ public class AIProblemServiceImpl implements AIProblemService {
     }
     
     @Override
-    public Map<String, Object> validateSolution(String problemId, String code) {
+    public SolutionResult validateSolution(String problemId, String code) {
         try {
-            Optional<AIProblem> problemOpt = aiProblemRepository.findByIdAndActiveTrue(problemId);
-            if (problemOpt.isPresent()) {
-                AIProblem problem = problemOpt.get();
+            AIProblem problem = catalog().byId().get(problemId);
+            if (problem != null) {
                 List<AIProblemConfig.TestCase> testCases = problem.getTestCases().stream()
                     .map(tc -> {
                         AIProblemConfig.TestCase configTC = new AIProblemConfig.TestCase();
@@ -83,7 +122,7 @@ public class AIProblemServiceImpl implements AIProblemService {
                     })
                     .collect(Collectors.toList());
                 
-                return validationFramework.validateSolution(problemId, code, testCases);
+                return validateWithCache(problemId, code, testCases);
             }
         } catch (Exception e) {
             log.warn("MongoDB not available, falling back to config: {}", e.getMessage());
@@ -92,16 +131,31 @@ public class AIProblemServiceImpl implements AIProblemService {
         // Fallback to config validation
         AIProblemConfig.Problem config = aiProblemConfig.getProblems().get(problemId);
         if (config == null) {
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", false);
-            result.put("message", "Problem not found");
-            result.put("passedTests", 0);
-            result.put("totalTests", 0);
-            result.put("testResults", new ArrayList<>());
-            return result;
+            return SolutionResult.problemNotFound();
         }
         
-        return validationFramework.validateSolution(problemId, code, config.getTestCases());
+        return validateWithCache(problemId, code, config.getTestCases());
+    }
+    
+    // Validation is deterministic, so identical code against identical test cases reuses the earlier result.
+    // The key covers the test case contents, which makes edited problems miss the cache on their own.
+    private SolutionResult validateWithCache(String problemId, String code, List<AIProblemConfig.TestCase> testCases) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (AIProblemConfig.TestCase testCase : testCases) {
+            fingerprint.append(testCase.getInput()).append('\0').append(testCase.getExpected()).append('\n');
+        }
+        String key = problemId + ":" + CodeHash.sha256(fingerprint.toString()) + ":" + CodeHash.of(code);
+        
+        // Results are immutable, so the cached instance is handed out as is. Results with
+        // timed out test cases depend on load and are not kept
+        SolutionResult cached = resultCache.get(key);
+        if (cached == null) {
+            cached = validationFramework.validateSolution(problemId, code, testCases);
+            if (cached.cacheable()) {
+                resultCache.put(key, cached);
+            }
+        }
+        return cached;
     }
     
     @Override
@@ -109,23 +163,79 @@ public class AIProblemServiceImpl implements AIProblemService {
         log.info("Problem initialization is handled by DataInitializationService");
     }
     
+    @Override
+    public void evictCatalog() {
+        synchronized (this) {
+            catalogGeneration++;
+            catalog = null;
+        }
+        // Results keyed by edited test cases can never be hit again
+        resultCache.clear();
+        validationFramework.evictPlans();
+    }
+    
     // Additional MongoDB-specific methods
     public List<AIProblem> getProblemsByCategory(String category) {
-        return aiProblemRepository.findByActiveTrueAndCategory(category);
+        return catalog().byCategory().getOrDefault(category, List.of());
     }
     
     public List<AIProblem> getProblemsByDifficulty(Difficulty difficulty) {
-        return aiProblemRepository.findByActiveTrueAndDifficulty(difficulty);
+        return catalog().byDifficulty().getOrDefault(difficulty, List.of());
     }
     
     public List<AIProblem> getProblemsByTag(String tag) {
-        return aiProblemRepository.findByActiveTrueAndTagsContaining(tag);
+        return catalog().byTag().getOrDefault(tag, List.of());
     }
     
     public List<AIProblem> searchProblems(String query) {
         return aiProblemRepository.findByActiveTrueAndTitleContainingIgnoreCase(query);
     }
     
+    private Catalog catalog() {
+        Catalog current = catalog;
+        if (current != null) {
+            return current;
+        }
+        long generation;
+        synchronized (this) {
+            generation = catalogGeneration;
+        }
+        
+        // Built outside the lock; a failed read is not cached, so the next call retries Mongo
+        List<AIProblem> active = List.copyOf(aiProblemRepository.findByActiveTrue());
+        Map<String, AIProblem> byId = new HashMap<>();
+        Map<String, List<AIProblem>> byCategory = new HashMap<>();
+        Map<Difficulty, List<AIProblem>> byDifficulty = new EnumMap<>(Difficulty.class);
+        Map<String, List<AIProblem>> byTag = new HashMap<>();
+        for (AIProblem problem : active) {
+            byId.put(problem.getId(), problem);
+            byCategory.computeIfAbsent(problem.getCategory(), k -> new ArrayList<>()).add(problem);
+            byDifficulty.computeIfAbsent(problem.getDifficulty(), k -> new ArrayList<>()).add(problem);
+            if (problem.getTags() != null) {
+                for (String tag : problem.getTags()) {
+                    byTag.computeIfAbsent(tag, k -> new ArrayList<>()).add(problem);
+                }
+            }
+        }
+        current = new Catalog(active, byId, byCategory, byDifficulty, byTag, etagOf(active));
+        
+        synchronized (this) {
+            if (generation == catalogGeneration) {
+                catalog = current;
+            }
+        }
+        return current;
+    }
+    
+    private String etagOf(List<AIProblem> problems) {
+        try {
+            return "\"" + CodeHash.sha256(objectMapper.writeValueAsString(problems)) + "\"";
+        } catch (JsonProcessingException e) {
+            log.warn("Could not compute catalog ETag: {}", e.getMessage());
+            return null;
+        }
+    }
+    
     // Fallback methods for config
     private List<AIProblem> getProblemsFromConfig() {
         List<AIProblem> problems = new ArrayList<>();
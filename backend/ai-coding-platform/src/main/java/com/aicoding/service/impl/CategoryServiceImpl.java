@@ -1,6 +1,8 @@
 package com.aicoding.service.impl;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,21 +46,17 @@ public class CategoryServiceImpl implements CategoryService {
     public CategoryResponse getCategoryById(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
-        return convertToCategoryResponse(category);
+        return convertToCategoryResponses(List.of(category)).get(0);
     }
 
     @Override
     public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(this::convertToCategoryResponse)
-                .collect(Collectors.toList());
+        return convertToCategoryResponses(categoryRepository.findAll());
     }
 
     @Override
     public List<CategoryResponse> getCategoriesByType(CategoryType type) {
-        return categoryRepository.findByType(type).stream()
-                .map(this::convertToCategoryResponse)
-                .collect(Collectors.toList());
+        return convertToCategoryResponses(categoryRepository.findByType(type));
     }
 
     @Override
@@ -74,13 +72,27 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryRepository.existsByName(name);
     }
     
-    private CategoryResponse convertToCategoryResponse(Category category) {
+    // Problem counts for all categories come from a single grouped query
+    private List<CategoryResponse> convertToCategoryResponses(List<Category> categories) {
+        Map<Long, Integer> problemCounts = new HashMap<>();
+        if (!categories.isEmpty()) {
+            List<Long> categoryIds = categories.stream().map(Category::getId).collect(Collectors.toList());
+            for (Object[] row : problemRepository.countByCategoryIdsGrouped(categoryIds)) {
+                problemCounts.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+        }
+        return categories.stream()
+                .map(category -> convertToCategoryResponse(category, problemCounts.getOrDefault(category.getId(), 0)))
+                .collect(Collectors.toList());
+    }
+    
+    private CategoryResponse convertToCategoryResponse(Category category, int problemCount) {
         CategoryResponse response = new CategoryResponse();
         response.setId(category.getId());
         response.setName(category.getName());
         response.setDescription(category.getDescription());
         response.setType(category.getType());
-        response.setProblemCount((int) problemRepository.countByCategoriesContaining(category));
+        response.setProblemCount(problemCount);
         return response;
     }
 }
\ No newline at end of file
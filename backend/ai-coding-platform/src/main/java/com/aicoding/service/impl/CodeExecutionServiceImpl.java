@@ -1,10 +1,21 @@
 package com.aicoding.service.impl;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.aicoding.dto.response.TestResultResponse;
@@ -16,130 +27,153 @@ import com.aicoding.model.SubmissionStatus;
 import com.aicoding.model.TestCase;
 import com.aicoding.model.TestResult;
 import com.aicoding.repository.SubmissionRepository;
-import com.aicoding.repository.TestResultRepository;
+import com.aicoding.sandbox.SandboxExecutor;
+import com.aicoding.sandbox.SandboxLimits;
+import com.aicoding.sandbox.SandboxProgram;
+import com.aicoding.sandbox.SandboxResult;
 import com.aicoding.service.CodeExecutionService;
+import com.aicoding.service.SubmissionProgressService;
+import com.aicoding.service.TestResultStorageService;
+import com.aicoding.util.EditDistance;
 
 @Service
 public class CodeExecutionServiceImpl implements CodeExecutionService {
 
+    private static final double SIMILARITY_THRESHOLD = 0.8;
+
+    // About a second of edit distance work; megabyte outputs that far apart are failed without finishing
+    private static final long SIMILARITY_MAX_CELLS = 100_000_000L;
+
+    // Extra work spent on the exact score of a failing output; beyond it the score is only a bound
+    private static final long EXACT_SIMILARITY_MAX_CELLS = 4_000_000L;
+
     @Autowired
     private SubmissionRepository submissionRepository;
     
     @Autowired
-    private TestResultRepository testResultRepository;
+    private TestResultStorageService testResultStorageService;
+    
+    @Autowired
+    private SandboxExecutor sandboxExecutor;
+
+    @Autowired
+    private SubmissionProgressService submissionProgressService;
+
+    @Autowired
+    private OutputMatcherCache outputMatcherCache;
+
+    @Autowired
+    @Qualifier("testCaseExecutor")
+    private Executor testCaseExecutor;
+
+    @Value("${judge.parallel.enabled:true}")
+    private boolean parallelEnabled;
+
+    @Value("${judge.parallel.max-concurrency-per-submission:4}")
+    private int maxConcurrencyPerSubmission;
+
+    @Value("${judge.stop-on-first-failure:false}")
+    private boolean stopOnFirstFailureByDefault;
+
+    @Value("${judge.sandbox.time-limit-ms:2000}")
+    private long defaultTimeLimitMs;
+
+    @Value("${judge.sandbox.memory-limit-mb:256}")
+    private long defaultMemoryLimitMb;
+
+    @Value("${judge.sandbox.output-limit-kb:1024}")
+    private long outputLimitKb;
+
+    @Value("${judge.output-preview-kb:64}")
+    private int outputPreviewKb;
 
     @Override
     public List<TestResultResponse> executeCode(String code, ProgrammingLanguage language, Problem problem) {
-        List<TestResultResponse> results = new ArrayList<>();
-        
-        for (TestCase testCase : problem.getTestCases()) {
-            TestResultResponse result = executeTestCase(code, language, testCase);
-            results.add(result);
+        List<TestCase> testCases = orderedTestCases(problem.getTestCases());
+        SandboxProgram program = sandboxExecutor.prepare(code, language);
+        try {
+            // A compile error is reported once rather than repeated for every test case
+            List<TestResult> testResults = program.isCompiled() || testCases.isEmpty()
+                    ? runTestCases(program, limitsFor(problem), testCases, false, result -> { })
+                    : List.of(runTestCase(program, limitsFor(problem), testCases.get(0)));
+            
+            List<TestResultResponse> results = new ArrayList<>();
+            for (TestResult testResult : testResults) {
+                results.add(convertToTestResultResponse(testResult));
+            }
+            
+            return results;
+        } finally {
+            sandboxExecutor.release(program);
         }
-        
-        return results;
     }
 
     @Override
     public TestResultResponse executeTestCase(String code, ProgrammingLanguage language, TestCase testCase) {
-        // This is a placeholder implementation
-        // In a real implementation, this would execute the code in a sandbox environment
-        // and return the actual results
-        
-        TestResultResponse result = new TestResultResponse();
-        result.setTestCaseId(testCase.getId());
-        result.setInput(testCase.getInput());
-        result.setExpectedOutput(testCase.getExpectedOutput());
-        
+        SandboxProgram program = sandboxExecutor.prepare(code, language);
         try {
-            // Simulate code execution
-            // In a real implementation, this would be replaced with actual code execution
-            String actualOutput = simulateCodeExecution(code, language, testCase.getInput());
-            result.setActualOutput(actualOutput);
-            
-            // Check if the output matches the expected output
-            boolean passed = checkOutput(actualOutput, testCase.getExpectedOutput(), testCase.getMatchType());
-            result.setPassed(passed);
-            
-            // Simulate execution time and memory usage
-            result.setExecutionTimeMs((long) (Math.random() * 1000)); // Random time between 0-1000ms
-            result.setMemoryUsageBytes((long) (Math.random() * 10 * 1024 * 1024)); // Random memory between 0-10MB
-            
-            if (testCase.getMatchType() == MatchType.SIMILARITY) {
-                result.setSimilarityScore(calculateSimilarity(actualOutput, testCase.getExpectedOutput()));
-            }
-        } catch (Exception e) {
-            result.setPassed(false);
-            result.setErrorMessage(e.getMessage());
+            return convertToTestResultResponse(runTestCase(program, limitsFor(testCase.getProblem()), testCase));
+        } finally {
+            sandboxExecutor.release(program);
         }
-        
-        return result;
     }
 
     @Override
     public Submission evaluateSubmission(Submission submission) {
-        // Set status to running
+        // Set status to running; the rest of the submission is written once, with the verdict
         submission.setStatus(SubmissionStatus.RUNNING);
-        submissionRepository.save(submission);
+        submissionRepository.updateStatus(submission.getId(), SubmissionStatus.RUNNING);
+        submissionProgressService.publishStatus(submission);
         
+        SandboxProgram program = null;
+        List<TestResult> recordedResults = List.of();
         try {
-            // Get all test cases for the problem
-            List<TestCase> testCases = submission.getProblem().getTestCases();
-            List<TestResult> testResults = new ArrayList<>();
+            // Get all test cases for the problem in their declared order
+            Problem problem = submission.getProblem();
+            List<TestCase> testCases = orderedTestCases(problem.getTestCases());
+            
+            // Compile once per submission
+            program = sandboxExecutor.prepare(submission.getCode(), submission.getLanguage());
+            if (!program.isCompiled()) {
+                submission.setStatus(SubmissionStatus.COMPILE_ERROR);
+                submission.setErrorMessage(program.getCompileOutput());
+                submission.setScore(0.0);
+                return submissionRepository.save(submission);
+            }
+            
+            // Execute the test cases, possibly in parallel; results come back in test case order.
+            // With fail-fast only the cases up to the first failure are recorded.
+            List<TestResult> testResults = runTestCases(program, limitsFor(problem), testCases,
+                    isStopOnFirstFailure(problem), progressPublisher(submission.getId(), testCases.size()));
             
             int passedCount = 0;
             long totalExecutionTime = 0;
             long maxMemoryUsage = 0;
+            SubmissionStatus firstFailure = null;
             
-            // Execute each test case
-            for (TestCase testCase : testCases) {
-                TestResult testResult = new TestResult();
-                testResult.setSubmission(submission);
-                testResult.setTestCase(testCase);
-                
-                try {
-                    // Simulate code execution
-                    String actualOutput = simulateCodeExecution(submission.getCode(), submission.getLanguage(), testCase.getInput());
-                    testResult.setActualOutput(actualOutput);
-                    
-                    // Check if the output matches the expected output
-                    boolean passed = checkOutput(actualOutput, testCase.getExpectedOutput(), testCase.getMatchType());
-                    testResult.setPassed(passed);
-                    
-                    if (passed) {
-                        passedCount++;
-                    }
-                    
-                    // Simulate execution time and memory usage
-                    long executionTime = (long) (Math.random() * 1000); // Random time between 0-1000ms
-                    long memoryUsage = (long) (Math.random() * 10 * 1024 * 1024); // Random memory between 0-10MB
-                    
-                    testResult.setExecutionTimeMs(executionTime);
-                    testResult.setMemoryUsageBytes(memoryUsage);
-                    
-                    totalExecutionTime += executionTime;
-                    maxMemoryUsage = Math.max(maxMemoryUsage, memoryUsage);
-                    
-                    if (testCase.getMatchType() == MatchType.SIMILARITY) {
-                        testResult.setSimilarityScore(calculateSimilarity(actualOutput, testCase.getExpectedOutput()));
-                    }
-                } catch (Exception e) {
-                    testResult.setPassed(false);
-                    testResult.setErrorMessage(e.getMessage());
+            for (TestResult testResult : testResults) {
+                if (testResult.isPassed()) {
+                    passedCount++;
+                } else if (firstFailure == null) {
+                    firstFailure = testResult.getVerdict();
+                }
+                if (testResult.getExecutionTimeMs() != null) {
+                    totalExecutionTime += testResult.getExecutionTimeMs();
+                }
+                if (testResult.getMemoryUsageBytes() != null) {
+                    maxMemoryUsage = Math.max(maxMemoryUsage, testResult.getMemoryUsageBytes());
                 }
-                
-                testResults.add(testResult);
             }
             
-            // Save test results
-            testResultRepository.saveAll(testResults);
-            submission.setTestResults(testResults);
+            // Written with the submission below, as rows or packed depending on the storage mode
+            recordedResults = testResults;
             
-            // Update submission status and statistics
+            // Update submission status and statistics; the verdict of the first failing
+            // case decides the status and cases skipped by fail-fast count as failed
             if (passedCount == testCases.size()) {
                 submission.setStatus(SubmissionStatus.ACCEPTED);
             } else {
-                submission.setStatus(SubmissionStatus.WRONG_ANSWER);
+                submission.setStatus(firstFailure != null ? firstFailure : SubmissionStatus.WRONG_ANSWER);
             }
             
             submission.setScore((double) passedCount / testCases.size() * 100);
@@ -148,131 +182,232 @@ public class CodeExecutionServiceImpl implements CodeExecutionService {
             
         } catch (Exception e) {
             submission.setStatus(SubmissionStatus.SYSTEM_ERROR);
+            submission.setErrorMessage(e.getMessage());
+        } finally {
+            if (program != null) {
+                sandboxExecutor.release(program);
+            }
         }
         
         // Save and return updated submission
-        return submissionRepository.save(submission);
+        return testResultStorageService.save(submission, recordedResults);
     }
     
-    // Placeholder method to simulate code execution
-    // In a real implementation, this would execute the code in a sandbox environment
-    private String simulateCodeExecution(String code, ProgrammingLanguage language, String input) throws Exception {
-        // Simulate execution delay
-        TimeUnit.MILLISECONDS.sleep((long) (Math.random() * 500));
-        
-        // This is just a placeholder implementation
-        // In a real implementation, this would execute the code and return the actual output
+    private List<TestCase> orderedTestCases(List<TestCase> testCases) {
+        return testCases.stream()
+                .sorted(Comparator.comparingInt(TestCase::getOrderIndex))
+                .collect(Collectors.toList());
+    }
+    
+    private SandboxLimits limitsFor(Problem problem) {
+        long timeLimitMs = problem != null && problem.getTimeLimitMs() != null
+                ? problem.getTimeLimitMs() : defaultTimeLimitMs;
+        long memoryLimitMb = problem != null && problem.getMemoryLimitMb() != null
+                ? problem.getMemoryLimitMb() : defaultMemoryLimitMb;
+        return new SandboxLimits(timeLimitMs, memoryLimitMb * 1024 * 1024, outputLimitKb * 1024);
+    }
+    
+    private boolean isStopOnFirstFailure(Problem problem) {
+        Boolean stopOnFirstFailure = problem.getStopOnFirstFailure();
+        return stopOnFirstFailure != null ? stopOnFirstFailure : stopOnFirstFailureByDefault;
+    }
+    
+    // Reports each finished test case to the submission's progress subscribers, in completion order
+    private Consumer<TestResult> progressPublisher(Long submissionId, int totalTestCases) {
+        AtomicInteger completed = new AtomicInteger();
+        return result -> {
+            int completedTestCases = completed.incrementAndGet();
+            if (submissionProgressService.hasSubscribers(submissionId)) {
+                submissionProgressService.publishTestResult(submissionId, completedTestCases, totalTestCases,
+                        convertToTestResultResponse(result));
+            }
+        };
+    }
+    
+    // Runs the test cases sequentially or fanned out over the test case pool.
+    // Results are always returned in the order of the given test cases. When
+    // stopOnFirstFailure is set, the results end at the first failing case and
+    // later cases are skipped or cancelled. onResult sees every finished case.
+    private List<TestResult> runTestCases(SandboxProgram program, SandboxLimits limits, List<TestCase> testCases,
+            boolean stopOnFirstFailure, Consumer<TestResult> onResult) {
+        if (!parallelEnabled || testCases.size() < 2) {
+            List<TestResult> results = new ArrayList<>();
+            for (TestCase testCase : testCases) {
+                TestResult result = runTestCase(program, limits, testCase);
+                onResult.accept(result);
+                results.add(result);
+                if (stopOnFirstFailure && !result.isPassed()) {
+                    break;
+                }
+            }
+            return results;
+        }
         
-        // For demonstration purposes, we'll return a simple output based on the input
-        // In a real implementation, this would be replaced with actual code execution
+        // Cap the number of in-flight test cases per submission so one large
+        // test suite cannot monopolise the shared pool
+        Semaphore permits = new Semaphore(Math.max(1, maxConcurrencyPerSubmission));
+        AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicReferenceArray<FutureTask<TestResult>> tasks = new AtomicReferenceArray<>(testCases.size());
         
-        // Simulate some basic processing based on the language and input
-        switch (language) {
-            case JAVA:
-                // Simulate Java execution
-                if (code.contains("System.out.println")) {
-                    return input.trim() + " processed by Java";
-                } else if (code.contains("Exception")) {
-                    throw new Exception("Java runtime error");
-                }
-                break;
-                
-            case PYTHON:
-                // Simulate Python execution
-                if (code.contains("print")) {
-                    return input.trim() + " processed by Python";
-                } else if (code.contains("raise")) {
-                    throw new Exception("Python runtime error");
-                }
-                break;
-                
-            case JAVASCRIPT:
-                // Simulate JavaScript execution
-                if (code.contains("console.log")) {
-                    return input.trim() + " processed by JavaScript";
-                } else if (code.contains("throw")) {
-                    throw new Exception("JavaScript runtime error");
-                }
-                break;
+        try {
+            for (int i = 0; i < testCases.size() && firstFailure.get() > i; i++) {
+                int index = i;
+                TestCase testCase = testCases.get(i);
+                FutureTask<TestResult> task = new FutureTask<>(() -> {
+                    if (firstFailure.get() < index) {
+                        return null;
+                    }
+                    TestResult result = runTestCase(program, limits, testCase);
+                    onResult.accept(result);
+                    if (stopOnFirstFailure && !result.isPassed()) {
+                        firstFailure.accumulateAndGet(index, Math::min);
+                        cancelAfter(tasks, index);
+                    }
+                    return result;
+                }) {
+                    @Override
+                    protected void done() {
+                        permits.release();
+                    }
+                };
                 
-            default:
-                // Default simulation
-                return input.trim() + " processed";
+                permits.acquire();
+                tasks.set(i, task);
+                testCaseExecutor.execute(task);
+            }
+            
+            List<TestResult> results = new ArrayList<>();
+            for (int i = 0; i < testCases.size() && i <= firstFailure.get(); i++) {
+                results.add(tasks.get(i).get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            cancelAfter(tasks, -1);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running test cases", e);
+        } catch (ExecutionException e) {
+            cancelAfter(tasks, -1);
+            throw new IllegalStateException("Test case execution failed", e.getCause());
+        } catch (RejectedExecutionException e) {
+            cancelAfter(tasks, -1);
+            throw new IllegalStateException("Could not schedule test cases", e);
         }
-        
-        return input.trim() + " processed";
     }
     
-    // Check if the output matches the expected output based on the match type
-    private boolean checkOutput(String actualOutput, String expectedOutput, MatchType matchType) {
-        if (actualOutput == null) {
-            return expectedOutput == null;
+    private void cancelAfter(AtomicReferenceArray<FutureTask<TestResult>> tasks, int index) {
+        for (int i = index + 1; i < tasks.length(); i++) {
+            FutureTask<TestResult> task = tasks.get(i);
+            if (task != null) {
+                task.cancel(true);
+            }
         }
+    }
+    
+    private TestResult runTestCase(SandboxProgram program, SandboxLimits limits, TestCase testCase) {
+        TestResult testResult = new TestResult();
+        testResult.setTestCase(testCase);
         
-        switch (matchType) {
-            case EXACT:
-                return actualOutput.equals(expectedOutput);
-                
-            case IGNORE_CASE:
-                return actualOutput.equalsIgnoreCase(expectedOutput);
-                
-            case IGNORE_WHITESPACE:
-                return actualOutput.replaceAll("\\s+", "").equals(expectedOutput.replaceAll("\\s+", ""));
-                
-            case NUMERIC:
-                try {
-                    double actual = Double.parseDouble(actualOutput.trim());
-                    double expected = Double.parseDouble(expectedOutput.trim());
-                    return Math.abs(actual - expected) < 1e-6;
-                } catch (NumberFormatException e) {
-                    return false;
-                }
-                
-            case CONTAINS:
-                return actualOutput.contains(expectedOutput);
-                
-            case REGEX:
-                return actualOutput.matches(expectedOutput);
-                
-            case SIMILARITY:
-                double similarity = calculateSimilarity(actualOutput, expectedOutput);
-                return similarity >= 0.8; // 80% similarity threshold
-                
+        try {
+            OutputMatcher matcher = outputMatcherCache.get(testCase);
+            StreamingOutputComparator output = matcher.comparator(outputPreviewKb * 1024);
+            SandboxResult result = sandboxExecutor.run(program, testCase.getInput(), limits, output);
+            testResult.setActualOutput(output.getPreview());
+            testResult.setExecutionTimeMs(result.getWallTimeMs());
+            testResult.setCpuTimeMs(result.getCpuTimeMs());
+            testResult.setMemoryUsageBytes(result.getPeakMemoryBytes());
+            
+            if (result.getOutcome() != SandboxResult.Outcome.OK) {
+                testResult.setPassed(false);
+                testResult.setVerdict(toVerdict(result.getOutcome()));
+                testResult.setErrorMessage(result.getStderr());
+                return testResult;
+            }
+            
+            // Check if the output matches the expected output; similarity is scored once and reused for the verdict
+            boolean passed;
+            if (output.isStreamed()) {
+                passed = output.matches();
+            } else if (matcher.getMatchType() == MatchType.SIMILARITY) {
+                double similarity = calculateSimilarity(output.getOutput(), matcher.getExpected());
+                testResult.setSimilarityScore(similarity);
+                passed = similarity >= SIMILARITY_THRESHOLD;
+            } else {
+                passed = matcher.matches(output.getOutput());
+            }
+            testResult.setPassed(passed);
+            testResult.setVerdict(passed ? SubmissionStatus.ACCEPTED : SubmissionStatus.WRONG_ANSWER);
+        } catch (Exception e) {
+            testResult.setPassed(false);
+            testResult.setVerdict(SubmissionStatus.SYSTEM_ERROR);
+            testResult.setErrorMessage(e.getMessage());
+        }
+        
+        return testResult;
+    }
+    
+    private SubmissionStatus toVerdict(SandboxResult.Outcome outcome) {
+        switch (outcome) {
+            case COMPILE_ERROR:
+                return SubmissionStatus.COMPILE_ERROR;
+            case TIME_LIMIT_EXCEEDED:
+                return SubmissionStatus.TIME_LIMIT_EXCEEDED;
+            case MEMORY_LIMIT_EXCEEDED:
+                return SubmissionStatus.MEMORY_LIMIT_EXCEEDED;
+            case OUTPUT_LIMIT_EXCEEDED:
+                return SubmissionStatus.OUTPUT_LIMIT_EXCEEDED;
+            case RUNTIME_ERROR:
+                return SubmissionStatus.RUNTIME_ERROR;
             default:
-                return actualOutput.equals(expectedOutput);
+                return SubmissionStatus.ACCEPTED;
         }
     }
     
-    // Calculate similarity between two strings (simple Levenshtein distance implementation)
+    private TestResultResponse convertToTestResultResponse(TestResult testResult) {
+        TestCase testCase = testResult.getTestCase();
+        TestResultResponse response = new TestResultResponse();
+        response.setTestCaseId(testCase.getId());
+        response.setInput(testCase.getInput());
+        response.setExpectedOutput(testCase.getExpectedOutput());
+        response.setActualOutput(testResult.getActualOutput());
+        response.setPassed(testResult.isPassed());
+        response.setVerdict(testResult.getVerdict());
+        response.setErrorMessage(testResult.getErrorMessage());
+        response.setExecutionTimeMs(testResult.getExecutionTimeMs());
+        response.setCpuTimeMs(testResult.getCpuTimeMs());
+        response.setMemoryUsageBytes(testResult.getMemoryUsageBytes());
+        response.setSimilarityScore(testResult.getSimilarityScore());
+        return response;
+    }
+    
+    // Similarity is 1 - Levenshtein distance / longer length. The distance is only computed
+    // up to what the threshold allows and within a work budget; a failing pair is scored
+    // exactly when that stays cheap, otherwise with the best score it could still have had
     private double calculateSimilarity(String s1, String s2) {
         int maxLength = Math.max(s1.length(), s2.length());
         if (maxLength == 0) {
             return 1.0; // Both strings are empty
         }
         
-        int distance = levenshteinDistance(s1, s2);
+        int allowed = maxPassingDistance(maxLength);
+        int distance = EditDistance.atMost(s1, s2, allowed, SIMILARITY_MAX_CELLS);
+        if (distance > allowed) {
+            int exact = EditDistance.atMost(s1, s2, maxLength, EXACT_SIMILARITY_MAX_CELLS);
+            distance = exact == EditDistance.UNKNOWN ? allowed + 1 : exact;
+        } else if (distance == EditDistance.UNKNOWN) {
+            distance = allowed + 1;
+        }
         return 1.0 - (double) distance / maxLength;
     }
     
-    // Levenshtein distance implementation
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-        
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
+    // Largest distance that still scores at or above the threshold, using the same arithmetic as the score
+    private int maxPassingDistance(int maxLength) {
+        int distance = (int) ((1.0 - SIMILARITY_THRESHOLD) * maxLength);
+        while (distance < maxLength && 1.0 - (double) (distance + 1) / maxLength >= SIMILARITY_THRESHOLD) {
+            distance++;
         }
-        
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                int cost = (s1.charAt(i - 1) == s2.charAt(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
-            }
+        while (distance > 0 && 1.0 - (double) distance / maxLength < SIMILARITY_THRESHOLD) {
+            distance--;
         }
-        
-        return dp[s1.length()][s2.length()];
+        return distance;
     }
 }
\ No newline at end of file
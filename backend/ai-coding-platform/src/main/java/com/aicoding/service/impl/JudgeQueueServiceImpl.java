@@ -0,0 +1,115 @@
+package com.aicoding.service.impl;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import com.aicoding.exception.JudgeQueueFullException;
+import com.aicoding.model.Submission;
+import com.aicoding.model.SubmissionStatus;
+import com.aicoding.repository.SubmissionRepository;
+import com.aicoding.service.CodeExecutionService;
+import com.aicoding.service.JudgeQueueService;
+import com.aicoding.service.StatisticsService;
+import com.aicoding.service.SubmissionProgressService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class JudgeQueueServiceImpl implements JudgeQueueService {
+
+    @Autowired
+    @Qualifier("judgeExecutor")
+    private TaskExecutor judgeExecutor;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private CodeExecutionService codeExecutionService;
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private SubmissionProgressService submissionProgressService;
+
+    // Recovered submissions that did not fit into the queue; every finished judge task makes room for more
+    private final Deque<Long> recoveryBacklog = new ConcurrentLinkedDeque<>();
+
+    @Override
+    public void enqueue(Long submissionId) {
+        try {
+            judgeExecutor.execute(() -> {
+                try {
+                    judge(submissionId);
+                } finally {
+                    requeueRecovered();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            throw new JudgeQueueFullException("Judge queue is full, please retry shortly", e);
+        }
+    }
+
+    /**
+     * Re-queues submissions that were left PENDING or RUNNING by a previous shutdown.
+     * Those that do not fit into the queue follow as judge tasks finish.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverUnfinishedSubmissions() {
+        List<Long> unfinished = submissionRepository.findIdsByStatusIn(
+                List.of(SubmissionStatus.PENDING, SubmissionStatus.RUNNING));
+        recoveryBacklog.addAll(unfinished);
+        int requeued = requeueRecovered();
+        if (requeued < unfinished.size()) {
+            log.warn("Judge queue full while recovering submissions, {} left pending until judge tasks finish",
+                    unfinished.size() - requeued);
+        } else if (!unfinished.isEmpty()) {
+            log.info("Re-queued {} unfinished submissions", requeued);
+        }
+    }
+
+    // Moves recovered submissions into the queue, in order, while it has room
+    private int requeueRecovered() {
+        int requeued = 0;
+        Long submissionId;
+        while ((submissionId = recoveryBacklog.pollFirst()) != null) {
+            try {
+                enqueue(submissionId);
+                requeued++;
+            } catch (JudgeQueueFullException e) {
+                recoveryBacklog.offerFirst(submissionId);
+                break;
+            }
+        }
+        return requeued;
+    }
+
+    private void judge(Long submissionId) {
+        Submission submission = submissionRepository.findByIdForJudging(submissionId).orElse(null);
+        if (submission == null) {
+            log.debug("Submission {} no longer exists, skipping", submissionId);
+            return;
+        }
+
+        try {
+            codeExecutionService.evaluateSubmission(submission);
+        } catch (Exception e) {
+            log.error("Judging submission {} failed: {}", submissionId, e.getMessage(), e);
+            submission.setStatus(SubmissionStatus.SYSTEM_ERROR);
+            submissionRepository.save(submission);
+        }
+        statisticsService.recordSubmission(submissionId);
+        submissionProgressService.publishStatus(submission);
+    }
+}
@@ -0,0 +1,131 @@
+package com.aicoding.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.aicoding.model.MatchType;
+
+/**
+ * A test case's expected output compiled for its match type: the pattern of
+ * a REGEX case and the numbers of a NUMERIC case are parsed once and shared
+ * by every run of the case. Instances are immutable and thread-safe; each
+ * run gets its own {@link StreamingOutputComparator}.
+ */
+final class OutputMatcher {
+
+    private final MatchType matchType;
+
+    private final String expected;
+
+    // Version of the problem the expectation was compiled from
+    private final int version;
+
+    private final Pattern pattern;
+
+    // An invalid pattern fails the runs that use it, not the problem update that stored it
+    private final RuntimeException patternError;
+
+    // Whitespace-separated expected numbers; null when some token is not a number
+    private final double[] numbers;
+
+    private final double absoluteTolerance;
+
+    private final double relativeTolerance;
+
+    OutputMatcher(String expected, MatchType matchType, int version,
+            double absoluteTolerance, double relativeTolerance) {
+        this.matchType = matchType != null ? matchType : MatchType.EXACT;
+        this.expected = expected;
+        this.version = version;
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+
+        Pattern compiled = null;
+        RuntimeException error = null;
+        if (this.matchType == MatchType.REGEX && expected != null) {
+            try {
+                compiled = Pattern.compile(expected);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        this.pattern = compiled;
+        this.patternError = error;
+        this.numbers = this.matchType == MatchType.NUMERIC && expected != null ? parseNumbers(expected) : null;
+    }
+
+    MatchType getMatchType() {
+        return matchType;
+    }
+
+    String getExpected() {
+        return expected;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    StreamingOutputComparator comparator(int previewChars) {
+        return new StreamingOutputComparator(this, previewChars);
+    }
+
+    /**
+     * Checks the whole output, for the match types that are not decided while streaming
+     */
+    boolean matches(String output) {
+        switch (matchType) {
+            case CONTAINS:
+                return output.contains(expected);
+            case REGEX:
+                if (patternError != null) {
+                    throw patternError;
+                }
+                return pattern.matcher(output).matches();
+            default:
+                return output.equals(expected);
+        }
+    }
+
+    /**
+     * @return How many numbers the output must have, or -1 if the expected output is not numeric
+     */
+    int numberCount() {
+        return numbers != null ? numbers.length : -1;
+    }
+
+    // Within the absolute tolerance, or the relative one scaled by the expected value
+    boolean numberMatches(int index, double actual) {
+        double expectedNumber = numbers[index];
+        double tolerance = Math.max(absoluteTolerance, relativeTolerance * Math.abs(expectedNumber));
+        return Math.abs(actual - expectedNumber) < tolerance;
+    }
+
+    // Tokens are separated by anything String.trim() would strip, as in the program output
+    private static double[] parseNumbers(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean separator = i == text.length() || text.charAt(i) <= ' ';
+            if (separator && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        double[] parsed = new double[tokens.size()];
+        try {
+            for (int i = 0; i < parsed.length; i++) {
+                parsed[i] = Double.parseDouble(tokens.get(i));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return parsed;
+    }
+}
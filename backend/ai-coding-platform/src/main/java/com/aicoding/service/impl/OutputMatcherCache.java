@@ -0,0 +1,86 @@
+package com.aicoding.service.impl;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.aicoding.model.Problem;
+import com.aicoding.model.TestCase;
+
+/**
+ * Compiled {@link OutputMatcher}s by test case id, so a hot problem compiles
+ * its expectations once rather than once per submission and test case.
+ * Entries carry the problem's judge version; a matcher compiled from an older
+ * version is recompiled on the next lookup. ProblemServiceImpl compiles a
+ * problem's test cases when it saves them and evicts the ones they replace;
+ * test cases of deleted problems are never looked up again and age out.
+ */
+@Component
+public class OutputMatcherCache {
+
+    @Value("${judge.output-matcher-cache.size:10000}")
+    private int maxSize;
+
+    @Value("${judge.numeric.absolute-tolerance:1e-6}")
+    private double absoluteTolerance;
+
+    @Value("${judge.numeric.relative-tolerance:0}")
+    private double relativeTolerance;
+
+    // Access-ordered, so the least recently used matcher is evicted first
+    private final LinkedHashMap<Long, OutputMatcher> matchers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, OutputMatcher> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    OutputMatcher get(TestCase testCase) {
+        int version = versionOf(testCase);
+        if (testCase.getId() == null) {
+            return compile(testCase, version);
+        }
+        synchronized (this) {
+            OutputMatcher matcher = matchers.get(testCase.getId());
+            if (matcher != null && matcher.getVersion() == version) {
+                return matcher;
+            }
+        }
+        // Compiled outside the lock; racing lookups at worst compile the same case twice
+        OutputMatcher matcher = compile(testCase, version);
+        synchronized (this) {
+            matchers.put(testCase.getId(), matcher);
+        }
+        return matcher;
+    }
+
+    /**
+     * Compiles the problem's saved test cases ahead of the first submission
+     */
+    public void compile(Problem problem) {
+        if (problem.getTestCases() != null) {
+            problem.getTestCases().forEach(this::get);
+        }
+    }
+
+    public synchronized void evict(Collection<TestCase> testCases) {
+        for (TestCase testCase : testCases) {
+            if (testCase.getId() != null) {
+                matchers.remove(testCase.getId());
+            }
+        }
+    }
+
+    private OutputMatcher compile(TestCase testCase, int version) {
+        return new OutputMatcher(testCase.getExpectedOutput(), testCase.getMatchType(), version,
+                absoluteTolerance, relativeTolerance);
+    }
+
+    private int versionOf(TestCase testCase) {
+        Problem problem = testCase.getProblem();
+        return problem != null && problem.getJudgeVersion() != null ? problem.getJudgeVersion() : 0;
+    }
+}
@@ -2,7 +2,11 @@ package com.aicoding.service.impl;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -27,15 +31,15 @@ import com.aicoding.model.Category;
 import com.aicoding.model.CodeTemplate;
 import com.aicoding.model.Difficulty;
 import com.aicoding.model.Problem;
-import com.aicoding.model.SubmissionStatus;
+import com.aicoding.model.ProblemStats;
 import com.aicoding.model.TestCase;
 import com.aicoding.model.User;
 import com.aicoding.repository.CategoryRepository;
 import com.aicoding.repository.ProblemRepository;
-import com.aicoding.repository.SubmissionRepository;
 import com.aicoding.repository.TestCaseRepository;
 import com.aicoding.security.services.UserDetailsImpl;
 import com.aicoding.service.ProblemService;
+import com.aicoding.service.StatisticsService;
 import com.aicoding.service.UserService;
 
 
@@ -52,19 +56,27 @@ public class ProblemServiceImpl implements ProblemService {
     private TestCaseRepository testCaseRepository;
     
     @Autowired
-    private SubmissionRepository submissionRepository;
+    private StatisticsService statisticsService;
     
     @Autowired
     private UserService userService;
+    
+    @Autowired
+    private OutputMatcherCache outputMatcherCache;
 
     @Override
     @Transactional
     public ProblemResponse createProblem(ProblemRequest problemRequest) {
         Problem problem = new Problem();
+        // Bumped by updateProblem whenever a change can affect verdicts
+        problem.setJudgeVersion(1);
         problem.setTitle(problemRequest.getTitle());
         problem.setDescription(problemRequest.getDescription());
         problem.setDifficulty(problemRequest.getDifficulty());
         problem.setActive(problemRequest.isActive());
+        problem.setStopOnFirstFailure(problemRequest.getStopOnFirstFailure());
+        problem.setTimeLimitMs(problemRequest.getTimeLimitMs());
+        problem.setMemoryLimitMb(problemRequest.getMemoryLimitMb());
         problem.setCreatedAt(LocalDateTime.now());
         problem.setUpdatedAt(LocalDateTime.now());
         
@@ -87,7 +99,8 @@ public class ProblemServiceImpl implements ProblemService {
         // Set created by (current user)
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        User currentUser = userService.findById(userDetails.getId());
+        // The principal already carries what the response needs; the user row is only referenced
+        User currentUser = userService.getReference(userDetails.getId());
         problem.setCreatedBy(currentUser);
 
         // Save problem first to get ID
@@ -108,9 +121,10 @@ public class ProblemServiceImpl implements ProblemService {
             }
             testCaseRepository.saveAll(testCases);
             savedProblem.setTestCases(testCases);
+            outputMatcherCache.compile(savedProblem);
         }
 
-        return convertToProblemResponse(savedProblem);
+        return convertToProblemResponse(savedProblem, toUserSummary(userDetails));
     }
 
     @Override
@@ -119,10 +133,23 @@ public class ProblemServiceImpl implements ProblemService {
         Problem problem = problemRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Problem not found with id: " + id));
 
+        // Anything that can change a verdict invalidates memoized verdicts of earlier submissions
+        boolean verdictsAffected = problemRequest.getTestCases() != null
+                || !Objects.equals(problem.getStopOnFirstFailure(), problemRequest.getStopOnFirstFailure())
+                || !Objects.equals(problem.getTimeLimitMs(), problemRequest.getTimeLimitMs())
+                || !Objects.equals(problem.getMemoryLimitMb(), problemRequest.getMemoryLimitMb());
+        if (verdictsAffected) {
+            int judgeVersion = problem.getJudgeVersion() != null ? problem.getJudgeVersion() : 0;
+            problem.setJudgeVersion(judgeVersion + 1);
+        }
+
         problem.setTitle(problemRequest.getTitle());
         problem.setDescription(problemRequest.getDescription());
         problem.setDifficulty(problemRequest.getDifficulty());
         problem.setActive(problemRequest.isActive());
+        problem.setStopOnFirstFailure(problemRequest.getStopOnFirstFailure());
+        problem.setTimeLimitMs(problemRequest.getTimeLimitMs());
+        problem.setMemoryLimitMb(problemRequest.getMemoryLimitMb());
         problem.setUpdatedAt(LocalDateTime.now());
 
         // Update categories
@@ -148,6 +175,7 @@ public class ProblemServiceImpl implements ProblemService {
         // Update test cases
         if (problemRequest.getTestCases() != null) {
             // Delete existing test cases
+            outputMatcherCache.evict(problem.getTestCases());
             testCaseRepository.deleteByProblemId(id);
             
             // Create new test cases
@@ -164,6 +192,7 @@ public class ProblemServiceImpl implements ProblemService {
             }
             testCaseRepository.saveAll(testCases);
             problem.setTestCases(testCases);
+            outputMatcherCache.compile(problem);
         }
         
         Problem updatedProblem = problemRepository.save(problem);
@@ -209,9 +238,7 @@ public class ProblemServiceImpl implements ProblemService {
         if (limit > 0 && limit < problems.size()) {
             problems = problems.subList(0, limit);
         }
-        return problems.stream()
-                .map(this::convertToProblemSummary)
-                .collect(Collectors.toList());
+        return convertToProblemSummaries(problems);
     }
 
     @Override
@@ -234,6 +261,25 @@ public class ProblemServiceImpl implements ProblemService {
     }
     
     private ProblemResponse convertToProblemResponse(Problem problem) {
+        UserSummaryResponse createdBy = null;
+        if (problem.getCreatedBy() != null) {
+            createdBy = new UserSummaryResponse();
+            createdBy.setId(problem.getCreatedBy().getId());
+            createdBy.setUsername(problem.getCreatedBy().getUsername());
+            createdBy.setEmail(problem.getCreatedBy().getEmail());
+        }
+        return convertToProblemResponse(problem, createdBy);
+    }
+    
+    private UserSummaryResponse toUserSummary(UserDetailsImpl userDetails) {
+        UserSummaryResponse userResponse = new UserSummaryResponse();
+        userResponse.setId(userDetails.getId());
+        userResponse.setUsername(userDetails.getUsername());
+        userResponse.setEmail(userDetails.getEmail());
+        return userResponse;
+    }
+    
+    private ProblemResponse convertToProblemResponse(Problem problem, UserSummaryResponse createdBy) {
         ProblemResponse response = new ProblemResponse();
         response.setId(problem.getId());
         response.setTitle(problem.getTitle());
@@ -242,13 +288,13 @@ public class ProblemServiceImpl implements ProblemService {
         response.setCreatedAt(problem.getCreatedAt());
         response.setUpdatedAt(problem.getUpdatedAt());
         response.setActive(problem.isActive());
+        response.setStopOnFirstFailure(problem.getStopOnFirstFailure());
+        response.setTimeLimitMs(problem.getTimeLimitMs());
+        response.setMemoryLimitMb(problem.getMemoryLimitMb());
         response.setCodeTemplates(problem.getCodeTemplates());
         
         // Set categories
-        List<CategoryResponse> categoryResponses = problem.getCategories().stream()
-                .map(this::convertToCategoryResponse)
-                .collect(Collectors.toList());
-        response.setCategories(categoryResponses);
+        response.setCategories(convertToCategoryResponses(problem.getCategories()));
         
         // Set test cases
         List<TestCaseResponse> testCaseResponses = problem.getTestCases().stream()
@@ -257,29 +303,38 @@ public class ProblemServiceImpl implements ProblemService {
         response.setTestCases(testCaseResponses);
         
         // Set created by user
-        if (problem.getCreatedBy() != null) {
-            UserSummaryResponse userResponse = new UserSummaryResponse();
-            userResponse.setId(problem.getCreatedBy().getId());
-            userResponse.setUsername(problem.getCreatedBy().getUsername());
-            userResponse.setEmail(problem.getCreatedBy().getEmail());
-            response.setCreatedBy(userResponse);
-        }
+        response.setCreatedBy(createdBy);
         
         // Set submission statistics
-        long submissionCount = submissionRepository.countByProblem(problem);
-        long acceptedSubmissions = submissionRepository.countByProblemAndStatus(problem, SubmissionStatus.ACCEPTED);
-        
-        response.setSubmissionCount((int) submissionCount);
-        if (submissionCount > 0) {
-            response.setSuccessRate((double) acceptedSubmissions / submissionCount * 100);
-        } else {
-            response.setSuccessRate(0.0);
-        }
+        SubmissionCounts counts = submissionCounts(List.of(problem)).getOrDefault(problem.getId(), SubmissionCounts.NONE);
+        response.setSubmissionCount((int) counts.total());
+        response.setSuccessRate(counts.successRate());
         
         return response;
     }
     
-    private ProblemSummaryResponse convertToProblemSummary(Problem problem) {
+    // Submission statistics for all problems come from a single lookup of their maintained counters
+    private List<ProblemSummaryResponse> convertToProblemSummaries(List<Problem> problems) {
+        Map<Long, SubmissionCounts> counts = submissionCounts(problems);
+        return problems.stream()
+                .map(problem -> convertToProblemSummary(problem,
+                        counts.getOrDefault(problem.getId(), SubmissionCounts.NONE)))
+                .collect(Collectors.toList());
+    }
+    
+    private Map<Long, SubmissionCounts> submissionCounts(Collection<Problem> problems) {
+        Map<Long, SubmissionCounts> counts = new HashMap<>();
+        if (problems.isEmpty()) {
+            return counts;
+        }
+        List<Long> problemIds = problems.stream().map(Problem::getId).collect(Collectors.toList());
+        for (ProblemStats stats : statisticsService.getProblemStats(problemIds).values()) {
+            counts.put(stats.getProblemId(), new SubmissionCounts(stats.getSubmissionCount(), stats.getAcceptedCount()));
+        }
+        return counts;
+    }
+    
+    private ProblemSummaryResponse convertToProblemSummary(Problem problem, SubmissionCounts counts) {
         ProblemSummaryResponse summary = new ProblemSummaryResponse();
         summary.setId(problem.getId());
         summary.setTitle(problem.getTitle());
@@ -292,26 +347,32 @@ public class ProblemServiceImpl implements ProblemService {
         summary.setCategoryNames(categoryNames);
         
         // Set submission statistics
-        long submissionCount = submissionRepository.countByProblem(problem);
-        long acceptedSubmissions = submissionRepository.countByProblemAndStatus(problem, SubmissionStatus.ACCEPTED);
-        
-        summary.setSubmissionCount((int) submissionCount);
-        if (submissionCount > 0) {
-            summary.setSuccessRate((double) acceptedSubmissions / submissionCount * 100);
-        } else {
-            summary.setSuccessRate(0.0);
-        }
+        summary.setSubmissionCount((int) counts.total());
+        summary.setSuccessRate(counts.successRate());
         
         return summary;
     }
     
-    private CategoryResponse convertToCategoryResponse(Category category) {
+    private List<CategoryResponse> convertToCategoryResponses(Collection<Category> categories) {
+        Map<Long, Integer> problemCounts = new HashMap<>();
+        if (!categories.isEmpty()) {
+            List<Long> categoryIds = categories.stream().map(Category::getId).collect(Collectors.toList());
+            for (Object[] row : problemRepository.countByCategoryIdsGrouped(categoryIds)) {
+                problemCounts.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+        }
+        return categories.stream()
+                .map(category -> convertToCategoryResponse(category, problemCounts.getOrDefault(category.getId(), 0)))
+                .collect(Collectors.toList());
+    }
+    
+    private CategoryResponse convertToCategoryResponse(Category category, int problemCount) {
         CategoryResponse response = new CategoryResponse();
         response.setId(category.getId());
         response.setName(category.getName());
         response.setDescription(category.getDescription());
         response.setType(category.getType());
-        response.setProblemCount(problemRepository.countByCategoriesContaining(category));
+        response.setProblemCount(problemCount);
         return response;
     }
     
@@ -333,10 +394,16 @@ public class ProblemServiceImpl implements ProblemService {
     }
     
     private Page<ProblemSummaryResponse> convertToProblemSummaryPage(Page<Problem> problemPage) {
-        List<ProblemSummaryResponse> problemSummaries = problemPage.getContent().stream()
-                .map(this::convertToProblemSummary)
-                .collect(Collectors.toList());
+        List<ProblemSummaryResponse> problemSummaries = convertToProblemSummaries(problemPage.getContent());
         
         return new PageImpl<>(problemSummaries, problemPage.getPageable(), problemPage.getTotalElements());
     }
-}
\ No newline at end of file
+    
+    private record SubmissionCounts(long total, long accepted) {
+        static final SubmissionCounts NONE = new SubmissionCounts(0, 0);
+        
+        double successRate() {
+            return total > 0 ? (double) accepted / total * 100 : 0.0;
+        }
+    }
+}
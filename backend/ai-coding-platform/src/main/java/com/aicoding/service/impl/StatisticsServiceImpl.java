@@ -0,0 +1,215 @@
+package com.aicoding.service.impl;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aicoding.model.ProblemStats;
+import com.aicoding.model.Submission;
+import com.aicoding.model.SubmissionStatus;
+import com.aicoding.model.UserProblemKey;
+import com.aicoding.model.UserProblemStats;
+import com.aicoding.model.UserStats;
+import com.aicoding.repository.ProblemStatsRepository;
+import com.aicoding.repository.SubmissionRepository;
+import com.aicoding.repository.UserProblemStatsRepository;
+import com.aicoding.repository.UserStatsRepository;
+import com.aicoding.service.StatisticsService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains the denormalized problem and user counters. All writes go through
+ * a single-threaded executor, so counters can be read-modify-written without
+ * locking. Each submission carries a countedInStats flag that is set in the
+ * same transaction as its counters, which makes recording idempotent and lets
+ * startup catch up on submissions that finished while no update was applied.
+ */
+@Slf4j
+@Service
+public class StatisticsServiceImpl implements StatisticsService {
+
+    private static final Set<SubmissionStatus> TERMINAL_STATUSES =
+            EnumSet.complementOf(EnumSet.of(SubmissionStatus.PENDING, SubmissionStatus.RUNNING));
+
+    @Autowired
+    @Qualifier("statisticsExecutor")
+    private Executor statisticsExecutor;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private ProblemStatsRepository problemStatsRepository;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private UserProblemStatsRepository userProblemStatsRepository;
+
+    @Override
+    public void recordSubmission(Long submissionId) {
+        execute(() -> apply(submissionId));
+    }
+
+    @Override
+    public void removeSubmission(Submission submission) {
+        if (!Boolean.TRUE.equals(submission.getCountedInStats())) {
+            return;
+        }
+        Long userId = submission.getUser() != null ? submission.getUser().getId() : null;
+        Long problemId = submission.getProblem() != null ? submission.getProblem().getId() : null;
+        boolean accepted = submission.getStatus() == SubmissionStatus.ACCEPTED;
+        execute(() -> adjust(userId, problemId, accepted, -1));
+    }
+
+    @Override
+    public UserStats getUserStats(Long userId) {
+        return userStatsRepository.findById(userId).orElseGet(() -> new UserStats(userId, 0, 0, 0));
+    }
+
+    @Override
+    public Map<Long, ProblemStats> getProblemStats(Collection<Long> problemIds) {
+        Map<Long, ProblemStats> stats = new HashMap<>();
+        for (ProblemStats problemStats : problemStatsRepository.findAllById(problemIds)) {
+            stats.put(problemStats.getProblemId(), problemStats);
+        }
+        return stats;
+    }
+
+    /**
+     * Builds the counters from scratch the first time, then counts whatever
+     * finished while the previous instance was shutting down.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        execute(() -> {
+            if (userStatsRepository.count() == 0 && problemStatsRepository.count() == 0) {
+                backfill();
+            }
+        });
+        execute(() -> {
+            List<Long> uncounted = submissionRepository.findIdsNotCountedInStats(TERMINAL_STATUSES);
+            uncounted.forEach(this::recordSubmission);
+            if (!uncounted.isEmpty()) {
+                log.info("Counting {} finished submissions missing from statistics", uncounted.size());
+            }
+        });
+    }
+
+    private void execute(Runnable update) {
+        statisticsExecutor.execute(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> update.run());
+            } catch (Exception e) {
+                log.error("Updating statistics failed: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    private void apply(Long submissionId) {
+        Submission submission = submissionRepository.findById(submissionId).orElse(null);
+        if (submission == null
+                || Boolean.TRUE.equals(submission.getCountedInStats())
+                || !TERMINAL_STATUSES.contains(submission.getStatus())) {
+            return;
+        }
+        adjust(submission.getUser() != null ? submission.getUser().getId() : null,
+                submission.getProblem() != null ? submission.getProblem().getId() : null,
+                submission.getStatus() == SubmissionStatus.ACCEPTED, 1);
+        submissionRepository.markCountedInStats(submissionId);
+    }
+
+    private void adjust(Long userId, Long problemId, boolean accepted, int delta) {
+        if (problemId != null) {
+            ProblemStats problemStats = problemStatsRepository.findById(problemId)
+                    .orElseGet(() -> new ProblemStats(problemId, 0, 0));
+            problemStats.setSubmissionCount(Math.max(0, problemStats.getSubmissionCount() + delta));
+            if (accepted) {
+                problemStats.setAcceptedCount(Math.max(0, problemStats.getAcceptedCount() + delta));
+            }
+            problemStatsRepository.save(problemStats);
+        }
+
+        if (userId == null) {
+            return;
+        }
+        UserStats userStats = getUserStats(userId);
+        userStats.setSubmissionCount(Math.max(0, userStats.getSubmissionCount() + delta));
+        if (accepted) {
+            userStats.setAcceptedCount(Math.max(0, userStats.getAcceptedCount() + delta));
+        }
+
+        // A problem counts as solved while the user has at least one accepted submission for it
+        if (accepted && problemId != null) {
+            UserProblemKey key = new UserProblemKey(userId, problemId);
+            UserProblemStats userProblemStats = userProblemStatsRepository.findById(key)
+                    .orElseGet(() -> new UserProblemStats(key, 0));
+            long before = userProblemStats.getAcceptedCount();
+            long after = Math.max(0, before + delta);
+            userProblemStats.setAcceptedCount(after);
+            if (before == 0 && after > 0) {
+                userStats.setSolvedProblems(userStats.getSolvedProblems() + 1);
+            } else if (before > 0 && after == 0) {
+                userStats.setSolvedProblems(Math.max(0, userStats.getSolvedProblems() - 1));
+            }
+            if (after > 0) {
+                userProblemStatsRepository.save(userProblemStats);
+            } else if (before > 0) {
+                userProblemStatsRepository.delete(userProblemStats);
+            }
+        }
+        userStatsRepository.save(userStats);
+    }
+
+    private void backfill() {
+        for (Object[] row : submissionRepository.countPerProblem(TERMINAL_STATUSES, SubmissionStatus.ACCEPTED)) {
+            if (row[0] != null) {
+                problemStatsRepository.save(new ProblemStats((Long) row[0], count(row[1]), count(row[2])));
+            }
+        }
+
+        Map<Long, UserStats> userStats = new HashMap<>();
+        for (Object[] row : submissionRepository.countPerUser(TERMINAL_STATUSES, SubmissionStatus.ACCEPTED)) {
+            if (row[0] != null) {
+                userStats.put((Long) row[0], new UserStats((Long) row[0], count(row[1]), count(row[2]), 0));
+            }
+        }
+        for (Object[] row : submissionRepository.countAcceptedPerUserAndProblem(SubmissionStatus.ACCEPTED)) {
+            if (row[0] == null || row[1] == null) {
+                continue;
+            }
+            userProblemStatsRepository.save(new UserProblemStats(
+                    new UserProblemKey((Long) row[0], (Long) row[1]), count(row[2])));
+            UserStats stats = userStats.get(row[0]);
+            if (stats != null) {
+                stats.setSolvedProblems(stats.getSolvedProblems() + 1);
+            }
+        }
+        userStatsRepository.saveAll(userStats.values());
+
+        int counted = submissionRepository.markAllCountedInStats(TERMINAL_STATUSES);
+        if (counted > 0) {
+            log.info("Built statistics from {} existing submissions", counted);
+        }
+    }
+
+    private static long count(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+}
@@ -0,0 +1,232 @@
+package com.aicoding.service.impl;
+
+import java.io.Writer;
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.aicoding.model.MatchType;
+
+/**
+ * Compares a program's standard output with a test case's expected output as
+ * the sandbox hands it over, so the output does not have to be collected
+ * first. EXACT, IGNORE_CASE, IGNORE_WHITESPACE and NUMERIC are decided
+ * character by character and stop comparing at the first mismatch; only a
+ * preview of the output is kept for display. NUMERIC compares each
+ * whitespace-separated number as soon as it ends. The remaining match types
+ * need the whole output and buffer it. Like before, trailing newlines printed
+ * by the program are ignored.
+ */
+class StreamingOutputComparator extends Writer {
+
+    private static final Set<MatchType> STREAMED = EnumSet.of(
+            MatchType.EXACT, MatchType.IGNORE_CASE, MatchType.IGNORE_WHITESPACE, MatchType.NUMERIC);
+
+    // Longer tokens are not a number anyone expects a program to print
+    private static final int MAX_NUMBER_CHARS = 1024;
+
+    private final OutputMatcher matcher;
+
+    private final String expected;
+
+    private final MatchType matchType;
+
+    private final boolean streamed;
+
+    private final int previewChars;
+
+    // The preview, or the whole output when the match type is not streamed
+    private final StringBuilder output = new StringBuilder();
+
+    private long length;
+
+    // Everything compared so far matched; once false the verdict is final
+    private boolean matching;
+
+    // Position in the expected output
+    private int position;
+
+    // Start of a run of newlines that may turn out to be trailing, and whether it matched so far
+    private int newlineRunStart = -1;
+    private boolean newlineRunMatching;
+
+    // NUMERIC: the number being read and how many came before it
+    private final StringBuilder number = new StringBuilder();
+    private int numbersRead;
+
+    /**
+     * @param previewChars How much of a streamed output to keep for {@link #getPreview()}
+     */
+    StreamingOutputComparator(OutputMatcher matcher, int previewChars) {
+        this.matcher = matcher;
+        this.expected = matcher.getExpected();
+        this.matchType = matcher.getMatchType();
+        this.streamed = STREAMED.contains(matchType);
+        this.previewChars = previewChars;
+        this.matching = expected != null && (matchType != MatchType.NUMERIC || matcher.numberCount() > 0);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            char c = chars[i];
+            if (!streamed || output.length() < previewChars) {
+                output.append(c);
+            }
+            length++;
+            if (streamed && matching) {
+                compare(c);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Whether the match type is decided here; otherwise compare {@link #getOutput()}
+     */
+    boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * @return Whether the output written so far matches, for streamed match types
+     */
+    boolean matches() {
+        if (!matching) {
+            return false;
+        }
+        switch (matchType) {
+            case EXACT:
+            case IGNORE_CASE:
+                return (newlineRunStart >= 0 ? newlineRunStart : position) == expected.length();
+            case IGNORE_WHITESPACE:
+                return skipWhitespace(position) == expected.length();
+            case NUMERIC:
+                return (number.length() == 0 || endNumber()) && numbersRead == matcher.numberCount();
+            default:
+                throw new IllegalStateException(matchType + " is not compared while streaming");
+        }
+    }
+
+    /**
+     * @return The whole output without trailing newlines, for match types that are not streamed
+     */
+    String getOutput() {
+        return stripTrailingNewlines(output);
+    }
+
+    /**
+     * @return The output to store and show: without trailing newlines if it fits the
+     *         preview, otherwise cut off at the preview size
+     */
+    String getPreview() {
+        if (length > previewChars) {
+            return output.substring(0, previewChars);
+        }
+        return stripTrailingNewlines(output);
+    }
+
+    private void compare(char c) {
+        switch (matchType) {
+            case EXACT:
+            case IGNORE_CASE:
+                compareChar(c);
+                break;
+            case IGNORE_WHITESPACE:
+                if (!isWhitespace(c)) {
+                    position = skipWhitespace(position);
+                    matching = position < expected.length() && expected.charAt(position) == c;
+                    position++;
+                }
+                break;
+            case NUMERIC:
+                // Numbers are separated by whatever String.trim() strips
+                if (c <= ' ') {
+                    if (number.length() > 0) {
+                        matching = endNumber();
+                    }
+                } else if (number.length() >= MAX_NUMBER_CHARS) {
+                    matching = false;
+                } else {
+                    number.append(c);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean endNumber() {
+        int index = numbersRead++;
+        try {
+            return index < matcher.numberCount()
+                    && matcher.numberMatches(index, Double.parseDouble(number.toString()));
+        } catch (NumberFormatException e) {
+            return false;
+        } finally {
+            number.setLength(0);
+        }
+    }
+
+    // Newlines are compared as they come, but a mismatch among them only counts
+    // once something other than a newline follows
+    private void compareChar(char c) {
+        boolean same = position < expected.length() && equal(expected.charAt(position), c);
+        if (c == '\n' || c == '\r') {
+            if (newlineRunStart < 0) {
+                newlineRunStart = position;
+                newlineRunMatching = true;
+            }
+            newlineRunMatching &= same;
+        } else {
+            if (newlineRunStart >= 0) {
+                matching = newlineRunMatching;
+                newlineRunStart = -1;
+            }
+            matching &= same;
+        }
+        position++;
+    }
+
+    private boolean equal(char expectedChar, char actualChar) {
+        if (expectedChar == actualChar) {
+            return true;
+        }
+        if (matchType != MatchType.IGNORE_CASE) {
+            return false;
+        }
+        // Same rule as String.equalsIgnoreCase
+        char upperExpected = Character.toUpperCase(expectedChar);
+        char upperActual = Character.toUpperCase(actualChar);
+        return upperExpected == upperActual
+                || Character.toLowerCase(upperExpected) == Character.toLowerCase(upperActual);
+    }
+
+    private int skipWhitespace(int from) {
+        int i = from;
+        while (i < expected.length() && isWhitespace(expected.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    // The characters matched by \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Programs almost always end their output with a newline that expected outputs omit
+    private static String stripTrailingNewlines(CharSequence text) {
+        int end = text.length();
+        while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return text.subSequence(0, end).toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.aicoding.service.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.aicoding.dto.response.SubmissionProgressEvent;
+import com.aicoding.dto.response.TestResultResponse;
+import com.aicoding.exception.ResourceNotFoundException;
+import com.aicoding.model.Submission;
+import com.aicoding.model.SubmissionStatus;
+import com.aicoding.repository.SubmissionRepository;
+import com.aicoding.service.SubmissionProgressService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes judging progress to clients over server-sent events. Emitters are
+ * kept per submission only while a client is connected; judging threads send
+ * to them directly and a failed send just drops that emitter.
+ */
+@Slf4j
+@Service
+public class SubmissionProgressServiceImpl implements SubmissionProgressService {
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Value("${judge.progress.timeout-ms:300000}")
+    private long timeoutMs;
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @Override
+    public SseEmitter subscribe(Long submissionId) {
+        if (!submissionRepository.existsById(submissionId)) {
+            throw new ResourceNotFoundException("Submission not found with id: " + submissionId);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> remove(submissionId, emitter));
+        emitter.onTimeout(() -> remove(submissionId, emitter));
+        emitter.onError(e -> remove(submissionId, emitter));
+        emitters.compute(submissionId, (id, subscribers) -> {
+            List<SseEmitter> updated = subscribers != null ? subscribers : new CopyOnWriteArrayList<>();
+            updated.add(emitter);
+            return updated;
+        });
+
+        // Registered before reading the status, so a verdict reached in between is not missed
+        Submission submission = submissionRepository.findById(submissionId).orElse(null);
+        if (submission == null) {
+            remove(submissionId, emitter);
+            emitter.complete();
+            return emitter;
+        }
+        if (send(emitter, "status", statusEvent(submission)) && isFinal(submission.getStatus())) {
+            remove(submissionId, emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @Override
+    public boolean hasSubscribers(Long submissionId) {
+        return emitters.containsKey(submissionId);
+    }
+
+    @Override
+    public void publishTestResult(Long submissionId, int completedTestCases, int totalTestCases,
+            TestResultResponse testResult) {
+        List<SseEmitter> subscribers = emitters.get(submissionId);
+        if (subscribers == null) {
+            return;
+        }
+        SubmissionProgressEvent event = new SubmissionProgressEvent();
+        event.setSubmissionId(submissionId);
+        event.setStatus(SubmissionStatus.RUNNING);
+        event.setCompletedTestCases(completedTestCases);
+        event.setTotalTestCases(totalTestCases);
+        event.setTestResult(testResult);
+        for (SseEmitter emitter : subscribers) {
+            send(emitter, "test-result", event);
+        }
+    }
+
+    @Override
+    public void publishStatus(Submission submission) {
+        List<SseEmitter> subscribers = isFinal(submission.getStatus())
+                ? emitters.remove(submission.getId())
+                : emitters.get(submission.getId());
+        if (subscribers == null) {
+            return;
+        }
+        SubmissionProgressEvent event = statusEvent(submission);
+        for (SseEmitter emitter : subscribers) {
+            if (send(emitter, "status", event) && isFinal(submission.getStatus())) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private SubmissionProgressEvent statusEvent(Submission submission) {
+        SubmissionProgressEvent event = new SubmissionProgressEvent();
+        event.setSubmissionId(submission.getId());
+        event.setStatus(submission.getStatus());
+        event.setScore(submission.getScore());
+        event.setExecutionTimeMs(submission.getExecutionTimeMs());
+        event.setMemoryUsageBytes(submission.getMemoryUsageBytes());
+        event.setErrorMessage(submission.getErrorMessage());
+        return event;
+    }
+
+    private boolean send(SseEmitter emitter, String name, SubmissionProgressEvent event) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(event, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the container completes the emitter
+            log.debug("Dropping progress subscriber of submission {}: {}", event.getSubmissionId(), e.getMessage());
+            remove(event.getSubmissionId(), emitter);
+            return false;
+        }
+    }
+
+    private void remove(Long submissionId, SseEmitter emitter) {
+        emitters.computeIfPresent(submissionId, (id, subscribers) -> {
+            subscribers.remove(emitter);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static boolean isFinal(SubmissionStatus status) {
+        return status != SubmissionStatus.PENDING && status != SubmissionStatus.RUNNING;
+    }
+}
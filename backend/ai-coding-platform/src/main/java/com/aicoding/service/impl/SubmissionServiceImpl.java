@@ -1,10 +1,14 @@
 package com.aicoding.service.impl;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -18,23 +22,32 @@ import com.aicoding.dto.response.ProblemSummaryResponse;
 import com.aicoding.dto.response.SubmissionResponse;
 import com.aicoding.dto.response.TestResultResponse;
 import com.aicoding.dto.response.UserSummaryResponse;
+import com.aicoding.exception.JudgeQueueFullException;
 import com.aicoding.exception.ResourceNotFoundException;
+import com.aicoding.model.Difficulty;
 import com.aicoding.model.Problem;
+import com.aicoding.model.ProgrammingLanguage;
 import com.aicoding.model.Submission;
 import com.aicoding.model.SubmissionStatus;
 import com.aicoding.model.TestResult;
 import com.aicoding.model.User;
 import com.aicoding.repository.ProblemRepository;
 import com.aicoding.repository.SubmissionRepository;
-import com.aicoding.repository.TestResultRepository;
 import com.aicoding.security.services.UserDetailsImpl;
-import com.aicoding.service.CodeExecutionService;
+import com.aicoding.service.JudgeQueueService;
+import com.aicoding.service.StatisticsService;
 import com.aicoding.service.SubmissionService;
+import com.aicoding.service.TestResultStorageService;
 import com.aicoding.service.UserService;
+import com.aicoding.util.CodeHash;
 
 @Service
 public class SubmissionServiceImpl implements SubmissionService {
 
+    // Verdicts that only depend on the code and the test data; time and memory verdicts can vary between runs
+    private static final List<SubmissionStatus> MEMOIZABLE_STATUSES = List.of(
+            SubmissionStatus.ACCEPTED, SubmissionStatus.WRONG_ANSWER, SubmissionStatus.COMPILE_ERROR);
+
     @Autowired
     private SubmissionRepository submissionRepository;
     
@@ -42,21 +55,28 @@ public class SubmissionServiceImpl implements SubmissionService {
     private ProblemRepository problemRepository;
     
     @Autowired
-    private TestResultRepository testResultRepository;
+    private TestResultStorageService testResultStorageService;
     
     @Autowired
     private UserService userService;
     
     @Autowired
-    private CodeExecutionService codeExecutionService;
+    private JudgeQueueService judgeQueueService;
+    
+    @Autowired
+    private StatisticsService statisticsService;
+    
+    @Value("${judge.verdict-cache.enabled:true}")
+    private boolean verdictCacheEnabled;
 
     @Override
-    @Transactional
     public SubmissionResponse submitSolution(SubmissionRequest submissionRequest) {
         // Get current user
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        User currentUser = userService.findById(userDetails.getId());
+        // The principal already carries what the response needs; the user row is only referenced
+        User currentUser = userService.getReference(userDetails.getId());
+        UserSummaryResponse currentUserSummary = toUserSummary(userDetails);
         
         // Get problem
         Problem problem = problemRepository.findById(submissionRequest.getProblemId())
@@ -67,17 +87,40 @@ public class SubmissionServiceImpl implements SubmissionService {
         submission.setUser(currentUser);
         submission.setProblem(problem);
         submission.setCode(submissionRequest.getCode());
+        submission.setCodeHash(CodeHash.of(submissionRequest.getCode()));
         submission.setLanguage(submissionRequest.getLanguage());
+        submission.setJudgeVersion(problem.getJudgeVersion() != null ? problem.getJudgeVersion() : 0);
         submission.setStatus(SubmissionStatus.PENDING);
         submission.setSubmittedAt(LocalDateTime.now());
         
-        // Save submission to get ID
+        // Identical code against the same problem version gets the earlier verdict without judging again
+        if (verdictCacheEnabled) {
+            Optional<Submission> previous = submissionRepository
+                    .findFirstByProblemAndLanguageAndCodeHashAndJudgeVersionAndStatusInOrderBySubmittedAtDesc(
+                            problem, submission.getLanguage(), submission.getCodeHash(),
+                            submission.getJudgeVersion(), MEMOIZABLE_STATUSES)
+                    // Rows hashed before the normalization changed can share a hash with different code
+                    .filter(candidate -> CodeHash.of(candidate.getCode()).equals(submission.getCodeHash()));
+            if (previous.isPresent()) {
+                List<TestResult> testResults = copyVerdict(previous.get(), submission);
+                Submission savedSubmission = testResultStorageService.save(submission, testResults);
+                statisticsService.recordSubmission(savedSubmission.getId());
+                return convertToSubmissionResponse(savedSubmission, currentUserSummary, testResults);
+            }
+        }
+        
+        // Save submission so the judge workers can pick it up
         Submission savedSubmission = submissionRepository.save(submission);
         
-        // Execute code and evaluate submission
-        Submission evaluatedSubmission = codeExecutionService.evaluateSubmission(savedSubmission);
+        // Hand the submission to the judge queue, dropping it again if the queue is full
+        try {
+            judgeQueueService.enqueue(savedSubmission.getId());
+        } catch (JudgeQueueFullException e) {
+            submissionRepository.deleteById(savedSubmission.getId());
+            throw e;
+        }
         
-        return convertToSubmissionResponse(evaluatedSubmission);
+        return convertToSubmissionResponse(savedSubmission, currentUserSummary, List.of());
     }
 
     @Override
@@ -87,35 +130,54 @@ public class SubmissionServiceImpl implements SubmissionService {
         return convertToSubmissionResponse(submission);
     }
 
+    // Pages are read in one transaction so the associations they load are shared across the page
     @Override
-    public Page<SubmissionResponse> getUserSubmissions(Long userId, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Page<SubmissionResponse> getUserSubmissions(Long userId, Pageable pageable, boolean full) {
         User user = userService.findById(userId);
+        if (!full) {
+            return submissionRepository.findSummariesByUser(user, pageable).map(this::convertSummaryToSubmissionResponse);
+        }
         Page<Submission> submissionPage = submissionRepository.findByUser(user, pageable);
         return convertToSubmissionResponsePage(submissionPage);
     }
 
     @Override
-    public Page<SubmissionResponse> getProblemSubmissions(Long problemId, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Page<SubmissionResponse> getProblemSubmissions(Long problemId, Pageable pageable, boolean full) {
         Problem problem = problemRepository.findById(problemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Problem not found with id: " + problemId));
+        if (!full) {
+            return submissionRepository.findSummariesByProblem(problem, pageable).map(this::convertSummaryToSubmissionResponse);
+        }
         Page<Submission> submissionPage = submissionRepository.findByProblem(problem, pageable);
         return convertToSubmissionResponsePage(submissionPage);
     }
 
     @Override
-    public Page<SubmissionResponse> getUserProblemSubmissions(Long userId, Long problemId, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Page<SubmissionResponse> getUserProblemSubmissions(Long userId, Long problemId, Pageable pageable, boolean full) {
         User user = userService.findById(userId);
         Problem problem = problemRepository.findById(problemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Problem not found with id: " + problemId));
+        if (!full) {
+            return submissionRepository.findSummariesByUserAndProblem(user, problem, pageable)
+                    .map(this::convertSummaryToSubmissionResponse);
+        }
         Page<Submission> submissionPage = submissionRepository.findByUserAndProblem(user, problem, pageable);
         return convertToSubmissionResponsePage(submissionPage);
     }
 
     @Override
-    public Page<SubmissionResponse> getUserProblemSubmissionsByStatus(Long userId, Long problemId, SubmissionStatus status, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Page<SubmissionResponse> getUserProblemSubmissionsByStatus(Long userId, Long problemId, SubmissionStatus status, Pageable pageable, boolean full) {
         User user = userService.findById(userId);
         Problem problem = problemRepository.findById(problemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Problem not found with id: " + problemId));
+        if (!full) {
+            return submissionRepository.findSummariesByUserAndProblemAndStatus(user, problem, status, pageable)
+                    .map(this::convertSummaryToSubmissionResponse);
+        }
         Page<Submission> submissionPage = submissionRepository.findByUserAndProblemAndStatus(user, problem, status, pageable);
         return convertToSubmissionResponsePage(submissionPage);
     }
@@ -123,14 +185,62 @@ public class SubmissionServiceImpl implements SubmissionService {
     @Override
     @Transactional
     public void deleteSubmission(Long id) {
-        if (!submissionRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Submission not found with id: " + id);
-        }
-        testResultRepository.deleteBySubmissionId(id);
+        Submission submission = submissionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Submission not found with id: " + id));
+        statisticsService.removeSubmission(submission);
+        testResultStorageService.deleteBySubmissionId(id);
         submissionRepository.deleteById(id);
     }
     
+    private List<TestResult> copyVerdict(Submission source, Submission target) {
+        target.setStatus(source.getStatus());
+        target.setScore(source.getScore());
+        target.setExecutionTimeMs(source.getExecutionTimeMs());
+        target.setMemoryUsageBytes(source.getMemoryUsageBytes());
+        target.setErrorMessage(source.getErrorMessage());
+        
+        List<TestResult> testResults = new ArrayList<>();
+        for (TestResult sourceResult : testResultStorageService.findBySubmission(source)) {
+            TestResult testResult = new TestResult();
+            testResult.setTestCase(sourceResult.getTestCase());
+            testResult.setPassed(sourceResult.isPassed());
+            testResult.setVerdict(sourceResult.getVerdict());
+            testResult.setActualOutput(sourceResult.getActualOutput());
+            testResult.setErrorMessage(sourceResult.getErrorMessage());
+            testResult.setExecutionTimeMs(sourceResult.getExecutionTimeMs());
+            testResult.setCpuTimeMs(sourceResult.getCpuTimeMs());
+            testResult.setMemoryUsageBytes(sourceResult.getMemoryUsageBytes());
+            testResult.setSimilarityScore(sourceResult.getSimilarityScore());
+            testResults.add(testResult);
+        }
+        return testResults;
+    }
+    
     private SubmissionResponse convertToSubmissionResponse(Submission submission) {
+        return convertToSubmissionResponse(submission, testResultStorageService.findBySubmission(submission));
+    }
+    
+    private SubmissionResponse convertToSubmissionResponse(Submission submission, List<TestResult> testResults) {
+        UserSummaryResponse userResponse = null;
+        if (submission.getUser() != null) {
+            userResponse = new UserSummaryResponse();
+            userResponse.setId(submission.getUser().getId());
+            userResponse.setUsername(submission.getUser().getUsername());
+            userResponse.setEmail(submission.getUser().getEmail());
+        }
+        return convertToSubmissionResponse(submission, userResponse, testResults);
+    }
+    
+    private UserSummaryResponse toUserSummary(UserDetailsImpl userDetails) {
+        UserSummaryResponse userResponse = new UserSummaryResponse();
+        userResponse.setId(userDetails.getId());
+        userResponse.setUsername(userDetails.getUsername());
+        userResponse.setEmail(userDetails.getEmail());
+        return userResponse;
+    }
+    
+    private SubmissionResponse convertToSubmissionResponse(Submission submission, UserSummaryResponse userResponse,
+            List<TestResult> testResults) {
         SubmissionResponse response = new SubmissionResponse();
         response.setId(submission.getId());
         response.setCode(submission.getCode());
@@ -139,16 +249,11 @@ public class SubmissionServiceImpl implements SubmissionService {
         response.setScore(submission.getScore());
         response.setExecutionTimeMs(submission.getExecutionTimeMs());
         response.setMemoryUsageBytes(submission.getMemoryUsageBytes());
+        response.setErrorMessage(submission.getErrorMessage());
         response.setSubmittedAt(submission.getSubmittedAt());
         
         // Set user
-        if (submission.getUser() != null) {
-            UserSummaryResponse userResponse = new UserSummaryResponse();
-            userResponse.setId(submission.getUser().getId());
-            userResponse.setUsername(submission.getUser().getUsername());
-            userResponse.setEmail(submission.getUser().getEmail());
-            response.setUser(userResponse);
-        }
+        response.setUser(userResponse);
         
         // Set problem
         if (submission.getProblem() != null) {
@@ -160,8 +265,8 @@ public class SubmissionServiceImpl implements SubmissionService {
         }
         
         // Set test results
-        if (submission.getTestResults() != null) {
-            List<TestResultResponse> testResultResponses = submission.getTestResults().stream()
+        if (testResults != null) {
+            List<TestResultResponse> testResultResponses = testResults.stream()
                     .map(this::convertToTestResultResponse)
                     .collect(Collectors.toList());
             response.setTestResults(testResultResponses);
@@ -178,16 +283,47 @@ public class SubmissionServiceImpl implements SubmissionService {
         response.setExpectedOutput(testResult.getTestCase().getExpectedOutput());
         response.setActualOutput(testResult.getActualOutput());
         response.setPassed(testResult.isPassed());
+        response.setVerdict(testResult.getVerdict());
         response.setErrorMessage(testResult.getErrorMessage());
         response.setExecutionTimeMs(testResult.getExecutionTimeMs());
+        response.setCpuTimeMs(testResult.getCpuTimeMs());
         response.setMemoryUsageBytes(testResult.getMemoryUsageBytes());
         response.setSimilarityScore(testResult.getSimilarityScore());
         return response;
     }
     
+    // A row of SubmissionRepository.SUMMARY
+    private SubmissionResponse convertSummaryToSubmissionResponse(Object[] row) {
+        SubmissionResponse response = new SubmissionResponse();
+        response.setId((Long) row[0]);
+        response.setLanguage((ProgrammingLanguage) row[1]);
+        response.setStatus((SubmissionStatus) row[2]);
+        response.setScore((Double) row[3]);
+        response.setExecutionTimeMs((Long) row[4]);
+        response.setMemoryUsageBytes((Long) row[5]);
+        response.setErrorMessage((String) row[6]);
+        response.setSubmittedAt((LocalDateTime) row[7]);
+        
+        UserSummaryResponse userResponse = new UserSummaryResponse();
+        userResponse.setId((Long) row[8]);
+        userResponse.setUsername((String) row[9]);
+        userResponse.setEmail((String) row[10]);
+        response.setUser(userResponse);
+        
+        ProblemSummaryResponse problemResponse = new ProblemSummaryResponse();
+        problemResponse.setId((Long) row[11]);
+        problemResponse.setTitle((String) row[12]);
+        problemResponse.setDifficulty((Difficulty) row[13]);
+        response.setProblem(problemResponse);
+        return response;
+    }
+    
     private Page<SubmissionResponse> convertToSubmissionResponsePage(Page<Submission> submissionPage) {
+        // Test results of the whole page at once rather than per submission
+        Map<Long, List<TestResult>> testResults = testResultStorageService.findBySubmissions(submissionPage.getContent());
         List<SubmissionResponse> submissionResponses = submissionPage.getContent().stream()
-                .map(this::convertToSubmissionResponse)
+                .map(submission -> convertToSubmissionResponse(submission,
+                        testResults.getOrDefault(submission.getId(), List.of())))
                 .collect(Collectors.toList());
         
         return new PageImpl<>(submissionResponses, submissionPage.getPageable(), submissionPage.getTotalElements());
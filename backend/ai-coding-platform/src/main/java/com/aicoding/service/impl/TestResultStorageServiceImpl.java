@@ -0,0 +1,311 @@
+package com.aicoding.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aicoding.model.PackedTestResults;
+import com.aicoding.model.Submission;
+import com.aicoding.model.SubmissionStatus;
+import com.aicoding.model.TestCase;
+import com.aicoding.model.TestResult;
+import com.aicoding.repository.PackedTestResultsRepository;
+import com.aicoding.repository.SubmissionRepository;
+import com.aicoding.repository.TestCaseRepository;
+import com.aicoding.repository.TestResultRepository;
+import com.aicoding.service.TestResultStorageService;
+
+/**
+ * Writes test results as test_results rows, or with
+ * judge.results.storage-mode=compact as one {@link PackedTestResults} row per
+ * submission. Reads look in both places, so results written before a switch
+ * of modes stay readable.
+ *
+ * The packed data starts with a format byte followed by one array per field,
+ * each covering all cases in order: test case ids (8 bytes), the passed
+ * bitset, verdict ordinals plus one (1 byte, 0 for none), execution and CPU
+ * times in ms (4 bytes) and memory in bytes (8 bytes), -1 for none, and
+ * similarity scores (4-byte floats, NaN for none).
+ */
+@Service
+public class TestResultStorageServiceImpl implements TestResultStorageService {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    // Id, verdict, execution time, CPU time, memory and similarity; the passed bits come on top
+    private static final int BYTES_PER_CASE = 8 + 1 + 4 + 4 + 8 + 4;
+
+    private static final String COMPACT = "compact";
+
+    private static final SubmissionStatus[] VERDICTS = SubmissionStatus.values();
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private TestResultRepository testResultRepository;
+
+    @Autowired
+    private PackedTestResultsRepository packedTestResultsRepository;
+
+    @Autowired
+    private TestCaseRepository testCaseRepository;
+
+    @Value("${judge.results.storage-mode:rows}")
+    private String storageMode;
+
+    @Value("${judge.results.compact.max-output-kb:16}")
+    private int maxOutputKb;
+
+    @Override
+    @Transactional
+    public Submission save(Submission submission, List<TestResult> testResults) {
+        if (!isCompact() || testResults.isEmpty()) {
+            if (!testResults.isEmpty()) {
+                // Inserted in batches by the cascade when the submission is saved
+                testResults.forEach(testResult -> testResult.setSubmission(submission));
+                submission.setTestResults(testResults);
+            }
+            return submissionRepository.save(submission);
+        }
+        Submission savedSubmission = submissionRepository.save(submission);
+        packedTestResultsRepository.save(pack(savedSubmission.getId(), testResults));
+        return savedSubmission;
+    }
+
+    @Override
+    public List<TestResult> findBySubmission(Submission submission) {
+        if (submission.getId() == null) {
+            return submission.getTestResults();
+        }
+        if (isCompact()) {
+            return packedTestResultsRepository.findById(submission.getId())
+                    .map(this::unpack)
+                    .orElseGet(() -> testResultRepository.findBySubmissionOrderByIdAsc(submission));
+        }
+        List<TestResult> testResults = testResultRepository.findBySubmissionOrderByIdAsc(submission);
+        if (!testResults.isEmpty()) {
+            return testResults;
+        }
+        return packedTestResultsRepository.findById(submission.getId())
+                .map(this::unpack)
+                .orElse(testResults);
+    }
+
+    @Override
+    public Map<Long, List<TestResult>> findBySubmissions(List<Submission> submissions) {
+        Map<Long, List<TestResult>> testResults = new HashMap<>();
+        if (submissions.isEmpty()) {
+            return testResults;
+        }
+        for (TestResult testResult : testResultRepository.findBySubmissionInOrderByIdAsc(submissions)) {
+            testResults.computeIfAbsent(testResult.getSubmission().getId(), id -> new ArrayList<>()).add(testResult);
+        }
+        List<Long> unrowedIds = submissions.stream()
+                .map(Submission::getId)
+                .filter(id -> !testResults.containsKey(id))
+                .collect(Collectors.toList());
+        if (!unrowedIds.isEmpty()) {
+            List<PackedTestResults> packedResults = packedTestResultsRepository.findAllById(unrowedIds);
+            Map<Long, TestCase> testCases = findTestCases(packedResults);
+            for (PackedTestResults packed : packedResults) {
+                testResults.put(packed.getSubmissionId(), unpack(packed, testCases));
+            }
+        }
+        return testResults;
+    }
+
+    @Override
+    @Transactional
+    public void deleteBySubmissionId(Long submissionId) {
+        testResultRepository.deleteBySubmissionId(submissionId);
+        packedTestResultsRepository.deleteBySubmissionId(submissionId);
+    }
+
+    private boolean isCompact() {
+        return COMPACT.equalsIgnoreCase(storageMode);
+    }
+
+    private PackedTestResults pack(Long submissionId, List<TestResult> testResults) {
+        int count = testResults.size();
+        ByteBuffer data = ByteBuffer.allocate(1 + count * BYTES_PER_CASE + bitsetLength(count));
+        data.put(FORMAT_VERSION);
+        for (TestResult testResult : testResults) {
+            data.putLong(testResult.getTestCase().getId());
+        }
+        byte[] passed = new byte[bitsetLength(count)];
+        for (int i = 0; i < count; i++) {
+            if (testResults.get(i).isPassed()) {
+                passed[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        data.put(passed);
+        for (TestResult testResult : testResults) {
+            data.put((byte) (testResult.getVerdict() != null ? testResult.getVerdict().ordinal() + 1 : 0));
+        }
+        for (TestResult testResult : testResults) {
+            data.putInt(toInt(testResult.getExecutionTimeMs()));
+        }
+        for (TestResult testResult : testResults) {
+            data.putInt(toInt(testResult.getCpuTimeMs()));
+        }
+        for (TestResult testResult : testResults) {
+            data.putLong(testResult.getMemoryUsageBytes() != null ? testResult.getMemoryUsageBytes() : -1);
+        }
+        for (TestResult testResult : testResults) {
+            data.putFloat(testResult.getSimilarityScore() != null
+                    ? testResult.getSimilarityScore().floatValue() : Float.NaN);
+        }
+
+        PackedTestResults packed = new PackedTestResults();
+        packed.setSubmissionId(submissionId);
+        packed.setTestCaseCount(count);
+        packed.setData(data.array());
+        // Only the first failure keeps its output; later ones rarely tell the user anything new
+        for (int i = 0; i < count; i++) {
+            TestResult testResult = testResults.get(i);
+            if (!testResult.isPassed()) {
+                packed.setFirstFailureIndex(i);
+                packed.setFirstFailureOutput(compress(testResult.getActualOutput()));
+                packed.setFirstFailureError(compress(testResult.getErrorMessage()));
+                break;
+            }
+        }
+        return packed;
+    }
+
+    private List<TestResult> unpack(PackedTestResults packed) {
+        return unpack(packed, findTestCases(List.of(packed)));
+    }
+
+    // The test cases of all packed results in one query
+    private Map<Long, TestCase> findTestCases(List<PackedTestResults> packedResults) {
+        Set<Long> testCaseIds = new HashSet<>();
+        for (PackedTestResults packed : packedResults) {
+            testCaseIds.addAll(readTestCaseIds(packed, ByteBuffer.wrap(packed.getData())));
+        }
+        if (testCaseIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return testCaseRepository.findAllById(testCaseIds).stream()
+                .collect(Collectors.toMap(TestCase::getId, Function.identity()));
+    }
+
+    private List<Long> readTestCaseIds(PackedTestResults packed, ByteBuffer data) {
+        if (data.get() != FORMAT_VERSION) {
+            throw new IllegalStateException("Unknown packed test result format for submission " + packed.getSubmissionId());
+        }
+        List<Long> testCaseIds = new ArrayList<>(packed.getTestCaseCount());
+        for (int i = 0; i < packed.getTestCaseCount(); i++) {
+            testCaseIds.add(data.getLong());
+        }
+        return testCaseIds;
+    }
+
+    private List<TestResult> unpack(PackedTestResults packed, Map<Long, TestCase> testCases) {
+        int count = packed.getTestCaseCount();
+        ByteBuffer data = ByteBuffer.wrap(packed.getData());
+        List<Long> testCaseIds = readTestCaseIds(packed, data);
+
+        List<TestResult> testResults = new ArrayList<>(count);
+        for (Long testCaseId : testCaseIds) {
+            TestResult testResult = new TestResult();
+            // Test cases replaced by a problem update are gone; keep their id
+            testResult.setTestCase(testCases.computeIfAbsent(testCaseId, this::removedTestCase));
+            testResults.add(testResult);
+        }
+        byte[] passed = new byte[bitsetLength(count)];
+        data.get(passed);
+        for (int i = 0; i < count; i++) {
+            testResults.get(i).setPassed((passed[i >> 3] & (1 << (i & 7))) != 0);
+        }
+        for (TestResult testResult : testResults) {
+            int verdict = data.get();
+            testResult.setVerdict(verdict > 0 ? VERDICTS[verdict - 1] : null);
+        }
+        for (TestResult testResult : testResults) {
+            testResult.setExecutionTimeMs(toLong(data.getInt()));
+        }
+        for (TestResult testResult : testResults) {
+            testResult.setCpuTimeMs(toLong(data.getInt()));
+        }
+        for (TestResult testResult : testResults) {
+            testResult.setMemoryUsageBytes(toLong(data.getLong()));
+        }
+        for (TestResult testResult : testResults) {
+            float similarity = data.getFloat();
+            testResult.setSimilarityScore(Float.isNaN(similarity) ? null : (double) similarity);
+        }
+
+        if (packed.getFirstFailureIndex() != null) {
+            TestResult firstFailure = testResults.get(packed.getFirstFailureIndex());
+            firstFailure.setActualOutput(decompress(packed.getFirstFailureOutput()));
+            firstFailure.setErrorMessage(decompress(packed.getFirstFailureError()));
+        }
+        return testResults;
+    }
+
+    private TestCase removedTestCase(Long id) {
+        TestCase testCase = new TestCase();
+        testCase.setId(id);
+        return testCase;
+    }
+
+    private static int bitsetLength(int count) {
+        return (count + 7) / 8;
+    }
+
+    private static int toInt(Long value) {
+        return value != null ? (int) Math.min(value, Integer.MAX_VALUE) : -1;
+    }
+
+    private static Long toLong(long value) {
+        return value >= 0 ? value : null;
+    }
+
+    // Capped at max-output-kb characters before deflating
+    private byte[] compress(String text) {
+        if (text == null) {
+            return null;
+        }
+        int maxChars = maxOutputKb * 1024;
+        String capped = text.length() > maxChars ? text.substring(0, maxChars) : text;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(capped.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String decompress(byte[] compressed) {
+        if (compressed == null) {
+            return null;
+        }
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
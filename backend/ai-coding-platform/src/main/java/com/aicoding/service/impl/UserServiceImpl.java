@@ -10,11 +10,11 @@ import org.springframework.stereotype.Service;
 
 import com.aicoding.dto.response.UserSummaryResponse;
 import com.aicoding.exception.ResourceNotFoundException;
-import com.aicoding.model.SubmissionStatus;
 import com.aicoding.model.User;
-import com.aicoding.repository.SubmissionRepository;
+import com.aicoding.model.UserStats;
 import com.aicoding.repository.UserRepository;
 import com.aicoding.security.services.UserDetailsImpl;
+import com.aicoding.service.StatisticsService;
 import com.aicoding.service.UserService;
 
 @Service
@@ -24,7 +24,7 @@ public class UserServiceImpl implements UserService {
     private UserRepository userRepository;
     
     @Autowired
-    private SubmissionRepository submissionRepository;
+    private StatisticsService statisticsService;
 
     @Override
     public User findById(Long id) {
@@ -32,6 +32,11 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
     }
 
+    @Override
+    public User getReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
     @Override
     public User findByUsername(String username) {
         return userRepository.findByUsername(username)
@@ -84,13 +89,14 @@ public class UserServiceImpl implements UserService {
         response.setCreatedAt(user.getCreatedAt());
         response.setEnabled(user.isEnabled());
         
-        // Calculate statistics
-        long totalSubmissions = submissionRepository.countByUser(user);
-        long acceptedSubmissions = submissionRepository.countByUserAndStatus(user, SubmissionStatus.ACCEPTED);
+        // Statistics are maintained as submissions finish judging
+        UserStats stats = statisticsService.getUserStats(user.getId());
+        long totalSubmissions = stats.getSubmissionCount();
+        long acceptedSubmissions = stats.getAcceptedCount();
         
         response.setTotalSubmissions((int) totalSubmissions);
-        response.setSolvedProblems((int) submissionRepository.countDistinctProblemsByUserAndStatus(user, SubmissionStatus.ACCEPTED));
-        response.setProblemsSolved((int) submissionRepository.countDistinctProblemsByUserAndStatus(user, SubmissionStatus.ACCEPTED));
+        response.setSolvedProblems((int) stats.getSolvedProblems());
+        response.setProblemsSolved((int) stats.getSolvedProblems());
         
         if (totalSubmissions > 0) {
             response.setSuccessRate((double) acceptedSubmissions / totalSubmissions * 100);
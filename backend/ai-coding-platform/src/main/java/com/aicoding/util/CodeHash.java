@@ -0,0 +1,43 @@
+package com.aicoding.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 of source code after normalizing what editors and browsers change
+ * without changing the program: line endings and blank lines at the end of the
+ * file. Whitespace inside lines is kept, since it can be part of a string
+ * literal or a line continuation.
+ */
+public final class CodeHash {
+
+    private CodeHash() {
+    }
+
+    public static String of(String code) {
+        return sha256(normalize(code));
+    }
+
+    public static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String normalize(String code) {
+        if (code == null) {
+            return "";
+        }
+        String normalized = code.replace("\r\n", "\n").replace('\r', '\n');
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+}
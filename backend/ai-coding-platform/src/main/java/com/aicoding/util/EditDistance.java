@@ -0,0 +1,148 @@
+package com.aicoding.util;
+
+import java.util.Arrays;
+
+/**
+ * Levenshtein distance bounded by a maximum, for deciding whether two texts
+ * are within a given number of edits without paying for the full matrix.
+ * Common prefixes and suffixes are skipped, cheap lower bounds (length and
+ * character counts) reject hopeless pairs in linear time, and the remaining
+ * core is computed diagonal by diagonal, one edit count at a time, keeping
+ * only two rows of the diagonal table and never looking past the maximum
+ * (Ukkonen's cutoff). Texts d edits apart typically cost O(n + d * d).
+ */
+public final class EditDistance {
+
+    /**
+     * Returned when the distance could not be decided within the cell budget
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final int HISTOGRAM_BUCKETS = 256;
+
+    private static final int UNREACHED = Integer.MIN_VALUE / 2;
+
+    private EditDistance() {
+    }
+
+    /**
+     * @return The edit distance between a and b if it is at most max, otherwise max + 1
+     */
+    public static int atMost(CharSequence a, CharSequence b, int max) {
+        return atMost(a, b, max, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #atMost(CharSequence, CharSequence, int)}, but gives up with
+     * {@link #UNKNOWN} once more than maxCells matrix cells would be evaluated.
+     * Pairs within a few edits of each other stay cheap however long they are;
+     * the budget only bites on long texts that are far apart.
+     */
+    public static int atMost(CharSequence a, CharSequence b, int max, long maxCells) {
+        if (max < 0) {
+            return 0;
+        }
+        int start = 0;
+        int endA = a.length();
+        int endB = b.length();
+        while (start < endA && start < endB && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+        char[] s = toChars(a, start, endA);
+        char[] t = toChars(b, start, endB);
+        if (s.length > t.length) {
+            char[] swap = s;
+            s = t;
+            t = swap;
+        }
+
+        if (t.length - s.length > max || histogramBound(s, t) > max) {
+            return max + 1;
+        }
+        if (s.length == 0) {
+            return t.length;
+        }
+
+        return diagonals(s, t, max, maxCells);
+    }
+
+    private static char[] toChars(CharSequence text, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = text.charAt(i);
+        }
+        return chars;
+    }
+
+    // Each edit changes the character counts by at most one surplus and one deficit
+    private static int histogramBound(char[] s, char[] t) {
+        int[] counts = new int[HISTOGRAM_BUCKETS];
+        for (char c : s) {
+            counts[c % HISTOGRAM_BUCKETS]++;
+        }
+        for (char c : t) {
+            counts[c % HISTOGRAM_BUCKETS]--;
+        }
+        int surplus = 0;
+        int deficit = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                surplus += count;
+            } else {
+                deficit -= count;
+            }
+        }
+        return Math.max(surplus, deficit);
+    }
+
+    // Furthest row reachable on each diagonal with e edits, for e = 0, 1, ... until the last
+    // cell is reached; s is the shorter text. Runs of equal characters are slid over for free,
+    // so similar texts cost little more than one pass
+    private static int diagonals(char[] s, char[] t, int max, long maxCells) {
+        int n = s.length;
+        int m = t.length;
+        int target = m - n;
+        int offset = Math.min(max, n) + 1;
+        int[] previous = new int[offset + Math.min(max, m) + 2];
+        int[] current = new int[previous.length];
+        Arrays.fill(previous, UNREACHED);
+        Arrays.fill(current, UNREACHED);
+        long cells = 0;
+        for (int e = 0; e <= max; e++) {
+            int low = Math.max(-n, -e);
+            int high = Math.min(m, e);
+            current[offset + low - 1] = UNREACHED;
+            current[offset + high + 1] = UNREACHED;
+            for (int diagonal = low; diagonal <= high; diagonal++) {
+                int row;
+                if (e == 0) {
+                    row = 0;
+                } else {
+                    row = Math.max(previous[offset + diagonal] + 1,
+                            Math.max(previous[offset + diagonal - 1], previous[offset + diagonal + 1] + 1));
+                    row = Math.min(row, Math.min(n, m - diagonal));
+                }
+                int start = row;
+                while (row < n && row + diagonal < m && s[row] == t[row + diagonal]) {
+                    row++;
+                }
+                cells += row - start + 1;
+                current[offset + diagonal] = row;
+                if (diagonal == target && row == n) {
+                    return e;
+                }
+            }
+            if (cells > maxCells) {
+                return UNKNOWN;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return max + 1;
+    }
+}
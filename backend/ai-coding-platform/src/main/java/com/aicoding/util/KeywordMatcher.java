@@ -0,0 +1,171 @@
+package com.aicoding.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Counts occurrences of ASCII keywords, grouped into categories, in a single
+ * scan of the text (Aho-Corasick automaton). Occurrences of the same keyword
+ * are counted without overlap, like repeated {@link java.util.regex.Matcher#find()};
+ * different keywords may overlap. Instances are immutable and thread-safe;
+ * {@link Counter}s are not.
+ */
+public final class KeywordMatcher {
+
+    private static final int ALPHABET = 128;
+
+    // Full transition table: delta[state][c] is the next state for ASCII character c
+    private final int[][] delta;
+
+    // Keywords ending at each state, including those reached through failure links
+    private final int[][] matches;
+
+    private final int[] keywordLength;
+
+    private final int[] keywordGroup;
+
+    private final int groups;
+
+    private final boolean ignoreCase;
+
+    /**
+     * Case-insensitive matcher; keywords must be lowercase
+     *
+     * @param keywordGroups One list of keywords per category; counts come back in the same order
+     */
+    public KeywordMatcher(List<List<String>> keywordGroups) {
+        this(keywordGroups, true);
+    }
+
+    public KeywordMatcher(List<List<String>> keywordGroups, boolean ignoreCase) {
+        this.groups = keywordGroups.size();
+        this.ignoreCase = ignoreCase;
+        List<String> keywords = new ArrayList<>();
+        List<Integer> groupOf = new ArrayList<>();
+        for (int group = 0; group < groups; group++) {
+            for (String keyword : keywordGroups.get(group)) {
+                if (keyword.isEmpty() || !keyword.chars().allMatch(
+                        c -> c < ALPHABET && (!ignoreCase || c == Character.toLowerCase(c)))) {
+                    throw new IllegalArgumentException("Keywords must be non-empty "
+                            + (ignoreCase ? "lowercase " : "") + "ASCII: " + keyword);
+                }
+                keywords.add(keyword);
+                groupOf.add(group);
+            }
+        }
+        keywordLength = keywords.stream().mapToInt(String::length).toArray();
+        keywordGroup = groupOf.stream().mapToInt(Integer::intValue).toArray();
+
+        // Trie
+        List<int[]> transitions = new ArrayList<>();
+        List<List<Integer>> ending = new ArrayList<>();
+        transitions.add(newState());
+        ending.add(new ArrayList<>());
+        for (int id = 0; id < keywords.size(); id++) {
+            int state = 0;
+            for (char c : keywords.get(id).toCharArray()) {
+                if (transitions.get(state)[c] < 0) {
+                    transitions.get(state)[c] = transitions.size();
+                    transitions.add(newState());
+                    ending.add(new ArrayList<>());
+                }
+                state = transitions.get(state)[c];
+            }
+            ending.get(state).add(id);
+        }
+
+        // Breadth-first: fill in missing transitions from the failure state and inherit its matches
+        int[] failure = new int[transitions.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions.get(0)[c];
+            if (next < 0) {
+                transitions.get(0)[c] = 0;
+            } else {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            ending.get(state).addAll(ending.get(failure[state]));
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions.get(state)[c];
+                if (next < 0) {
+                    transitions.get(state)[c] = transitions.get(failure[state])[c];
+                } else {
+                    failure[next] = transitions.get(failure[state])[c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        delta = transitions.toArray(new int[0][]);
+        matches = new int[ending.size()][];
+        for (int state = 0; state < matches.length; state++) {
+            matches[state] = ending.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * @return Occurrences per keyword group, in the order the groups were given
+     */
+    public int[] count(CharSequence text) {
+        Counter counter = counter();
+        for (int i = 0; i < text.length(); i++) {
+            counter.accept(text.charAt(i));
+        }
+        return counter.counts();
+    }
+
+    /**
+     * Starts an incremental count, for callers that walk the text themselves
+     */
+    public Counter counter() {
+        return new Counter();
+    }
+
+    public final class Counter {
+        private final int[] counts = new int[groups];
+        // Position after the last counted occurrence of each keyword
+        private final int[] countedUpTo = new int[keywordLength.length];
+        private int state;
+        private int position;
+
+        private Counter() {
+        }
+
+        public void accept(char c) {
+            position++;
+            if (ignoreCase) {
+                c = Character.toLowerCase(c);
+            }
+            if (c >= ALPHABET) {
+                state = 0;
+                return;
+            }
+            state = delta[state][c];
+            for (int id : matches[state]) {
+                if (position - keywordLength[id] >= countedUpTo[id]) {
+                    counts[keywordGroup[id]]++;
+                    countedUpTo[id] = position;
+                }
+            }
+        }
+
+        /**
+         * @return Occurrences per keyword group so far; the array is live, not a copy
+         */
+        public int[] counts() {
+            return counts;
+        }
+    }
+
+    private static int[] newState() {
+        int[] transitions = new int[ALPHABET];
+        Arrays.fill(transitions, -1);
+        return transitions;
+    }
+}
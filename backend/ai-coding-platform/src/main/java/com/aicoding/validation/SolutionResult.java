@@ -0,0 +1,27 @@
+package com.aicoding.validation;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Result of validating a solution to an AI problem. Errors are only present
+ * when the code was rejected before running the test cases, structure
+ * warnings only when the test cases ran. Instances are immutable and can be
+ * shared between requests; a result is only cacheable when it does not depend
+ * on load, i.e. no test case timed out.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SolutionResult(boolean success, @JsonInclude(JsonInclude.Include.ALWAYS) String message,
+        int passedTests, int totalTests, List<TestOutcome> testResults, List<String> errors,
+        List<String> structureWarnings, @JsonIgnore boolean cacheable) {
+
+    public static SolutionResult rejected(String message, List<String> errors, int totalTests) {
+        return new SolutionResult(false, message, 0, totalTests, List.of(), List.copyOf(errors), null, true);
+    }
+
+    public static SolutionResult problemNotFound() {
+        return new SolutionResult(false, "Problem not found", 0, 0, List.of(), null, null, true);
+    }
+}
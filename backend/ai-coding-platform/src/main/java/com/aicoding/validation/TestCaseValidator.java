@@ -1,7 +1,6 @@
 package com.aicoding.validation;
 
 import com.aicoding.config.AIProblemConfig;
-import java.util.Map;
 
 public interface TestCaseValidator {
     /**
@@ -9,9 +8,9 @@ public interface TestCaseValidator {
      * @param problemId The ID of the problem
      * @param testCase The test case to validate
      * @param userCode The user's submitted code
-     * @return Test result containing input, expected, actual, and passed status
+     * @return Test outcome with input, expected, actual, passed status and feedback on failure
      */
-    Map<String, Object> validateTestCase(String problemId, AIProblemConfig.TestCase testCase, String userCode);
+    TestOutcome validateTestCase(String problemId, AIProblemConfig.TestCase testCase, String userCode);
     
     /**
      * Checks if this validator supports the given problem type
@@ -0,0 +1,11 @@
+package com.aicoding.validation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one test case of an AI problem. Feedback is only set, and only
+ * serialized, when the test case failed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TestOutcome(String input, String expected, String actual, boolean passed, String feedback) {
+}
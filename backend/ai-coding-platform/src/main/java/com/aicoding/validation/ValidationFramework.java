@@ -2,11 +2,19 @@ package com.aicoding.validation;
 
 import com.aicoding.config.AIProblemConfig;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class ValidationFramework {
@@ -17,41 +25,83 @@ public class ValidationFramework {
     @Autowired
     private List<CodeStructureValidator> codeStructureValidators;
     
+    @Autowired
+    @Qualifier("validationExecutor")
+    private AsyncTaskExecutor validationExecutor;
+    
+    @Value("${ai.validation.parallel.enabled:false}")
+    private boolean parallelEnabled;
+    
+    @Value("${ai.validation.parallel.test-timeout-ms:5000}")
+    private long testTimeoutMs;
+    
+    // Validators resolved once per problem; either may be null when nothing supports the problem
+    private record ValidationPlan(CodeStructureValidator structureValidator, TestCaseValidator testCaseValidator) {
+    }
+    
+    private final Map<String, ValidationPlan> plans = new ConcurrentHashMap<>();
+    
+    // Outcomes in test case order, and whether any case was cut off by the timeout
+    private record TestRun(List<TestOutcome> outcomes, boolean timedOut) {
+    }
+    
     /**
      * Validates the complete solution including code structure and test cases
      */
-    public Map<String, Object> validateSolution(String problemId, String userCode, List<AIProblemConfig.TestCase> testCases) {
-        Map<String, Object> result = new HashMap<>();
+    public SolutionResult validateSolution(String problemId, String userCode, List<AIProblemConfig.TestCase> testCases) {
+        ValidationPlan plan = plans.computeIfAbsent(problemId, this::createPlan);
         
         // 1. Validate code structure first
-        ValidationResult structureResult = validateCodeStructure(userCode, problemId);
+        ValidationResult structureResult = validateCodeStructure(plan, userCode, problemId);
         if (!structureResult.isSuccess()) {
-            return createErrorResponse(structureResult.getMessage(), structureResult.getErrors(), 0, testCases.size());
+            return SolutionResult.rejected(structureResult.getMessage(), structureResult.getErrors(), testCases.size());
         }
         
         // 2. Execute test cases
-        List<Map<String, Object>> testResults = executeTestCases(problemId, testCases, userCode);
+        TestRun testRun = executeTestCases(plan, problemId, testCases, userCode);
+        List<TestOutcome> testResults = testRun.outcomes();
         
         // 3. Calculate results
-        int passedTests = (int) testResults.stream().mapToLong(tr -> (Boolean) tr.get("passed") ? 1 : 0).sum();
+        int passedTests = 0;
+        for (TestOutcome testResult : testResults) {
+            if (testResult.passed()) {
+                passedTests++;
+            }
+        }
         int totalTests = testCases.size();
         
         // 4. Build response
-        result.put("success", passedTests == totalTests);
-        result.put("passedTests", passedTests);
-        result.put("totalTests", totalTests);
-        result.put("testResults", testResults);
-        result.put("message", generateResultMessage(passedTests, totalTests));
-        result.put("structureWarnings", structureResult.getWarnings());
+        return new SolutionResult(passedTests == totalTests, generateResultMessage(passedTests, totalTests),
+            passedTests, totalTests, testResults, null, List.copyOf(structureResult.getWarnings()),
+            !testRun.timedOut());
+    }
+    
+    /**
+     * Drops the resolved validators, e.g. after the problem catalog changed
+     */
+    public void evictPlans() {
+        plans.clear();
+    }
+    
+    private ValidationPlan createPlan(String problemId) {
+        CodeStructureValidator structureValidator = codeStructureValidators.stream()
+            .filter(validator -> validator.supports(problemId))
+            .findFirst()
+            .orElse(null);
         
-        return result;
+        // Prefer the most specific validator for this problem over the generic fallback
+        TestCaseValidator testCaseValidator = testCaseValidators.stream()
+            .filter(validator -> validator.supports(problemId) && !validator.getClass().getSimpleName().contains("Generic"))
+            .findFirst()
+            .or(() -> testCaseValidators.stream().filter(validator -> validator.supports(problemId)).findFirst())
+            .orElse(null);
+        
+        return new ValidationPlan(structureValidator, testCaseValidator);
     }
     
-    private ValidationResult validateCodeStructure(String code, String problemId) {
-        for (CodeStructureValidator validator : codeStructureValidators) {
-            if (validator.supports(problemId)) {
-                return validator.validateStructure(code, problemId);
-            }
+    private ValidationResult validateCodeStructure(ValidationPlan plan, String code, String problemId) {
+        if (plan.structureValidator() != null) {
+            return plan.structureValidator().validateStructure(code, problemId);
         }
         
         // Fallback to basic validation
@@ -62,46 +112,69 @@ public class ValidationFramework {
         return result;
     }
     
-    private List<Map<String, Object>> executeTestCases(String problemId, List<AIProblemConfig.TestCase> testCases, String userCode) {
-        return testCases.stream()
-            .map(testCase -> executeTestCase(problemId, testCase, userCode))
-            .toList();
+    private TestRun executeTestCases(ValidationPlan plan, String problemId,
+            List<AIProblemConfig.TestCase> testCases, String userCode) {
+        if (!parallelEnabled || testCases.size() < 2) {
+            return new TestRun(testCases.stream()
+                .map(testCase -> executeTestCase(plan, problemId, testCase, userCode))
+                .toList(), false);
+        }
+        
+        // A saturated executor runs the case on this thread inside submit(), without a timeout
+        List<Future<TestOutcome>> futures = new ArrayList<>(testCases.size());
+        for (AIProblemConfig.TestCase testCase : testCases) {
+            futures.add(validationExecutor.submit(() -> executeTestCase(plan, problemId, testCase, userCode)));
+        }
+        
+        // Collected in test case order; each case gets its own timeout once the previous one is in
+        List<TestOutcome> results = new ArrayList<>(testCases.size());
+        boolean timedOut = false;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                TestOutcome outcome = awaitTestCase(futures.get(i));
+                if (outcome == null) {
+                    timedOut = true;
+                    outcome = new TestOutcome(testCases.get(i).getInput(), testCases.get(i).getExpected(), "timeout",
+                        false, String.format("Test case did not finish within %d ms", testTimeoutMs));
+                }
+                results.add(outcome);
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating test cases", e);
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return new TestRun(results, timedOut);
     }
     
-    private Map<String, Object> executeTestCase(String problemId, AIProblemConfig.TestCase testCase, String userCode) {
-        // Find the most specific validator for this problem
-        for (TestCaseValidator validator : testCaseValidators) {
-            if (validator.supports(problemId) && !validator.getClass().getSimpleName().contains("Generic")) {
-                return validator.validateTestCase(problemId, testCase, userCode);
+    // Null when the case did not finish in time
+    private TestOutcome awaitTestCase(Future<TestOutcome> future) throws InterruptedException {
+        try {
+            return future.get(testTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            // Surface validator failures the same way as in sequential mode
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            throw new IllegalStateException("Test case validation failed", e.getCause());
         }
-        
-        // Fallback to generic validator
-        for (TestCaseValidator validator : testCaseValidators) {
-            if (validator.supports(problemId)) {
-                return validator.validateTestCase(problemId, testCase, userCode);
-            }
+    }
+    
+    private TestOutcome executeTestCase(ValidationPlan plan, String problemId,
+            AIProblemConfig.TestCase testCase, String userCode) {
+        if (plan.testCaseValidator() != null) {
+            return plan.testCaseValidator().validateTestCase(problemId, testCase, userCode);
         }
         
         // Should never reach here, but just in case
-        Map<String, Object> result = new HashMap<>();
-        result.put("input", testCase.getInput());
-        result.put("expected", testCase.getExpected());
-        result.put("actual", "error");
-        result.put("passed", false);
-        result.put("feedback", "No validator found for this problem type");
-        return result;
-    }
-    
-    private Map<String, Object> createErrorResponse(String message, List<String> errors, int passedTests, int totalTests) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("success", false);
-        result.put("message", message);
-        result.put("errors", errors);
-        result.put("passedTests", passedTests);
-        result.put("totalTests", totalTests);
-        result.put("testResults", List.of());
-        return result;
+        return new TestOutcome(testCase.getInput(), testCase.getExpected(), "error", false,
+            "No validator found for this problem type");
     }
     
     private String generateResultMessage(int passedTests, int totalTests) {
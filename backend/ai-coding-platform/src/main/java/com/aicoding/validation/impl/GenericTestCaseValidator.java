@@ -2,33 +2,22 @@ package com.aicoding.validation.impl;
 
 import com.aicoding.config.AIProblemConfig;
 import com.aicoding.validation.TestCaseValidator;
+import com.aicoding.validation.TestOutcome;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
-
 @Component
 public class GenericTestCaseValidator implements TestCaseValidator {
     
     @Override
-    public Map<String, Object> validateTestCase(String problemId, AIProblemConfig.TestCase testCase, String userCode) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("input", testCase.getInput());
-        result.put("expected", testCase.getExpected());
-        
+    public TestOutcome validateTestCase(String problemId, AIProblemConfig.TestCase testCase, String userCode) {
         // Simulate execution based on problem type
         String actualResult = simulateExecution(problemId, testCase.getInput());
-        result.put("actual", actualResult);
         
         boolean passed = actualResult.equals(testCase.getExpected());
-        result.put("passed", passed);
-        
-        if (!passed) {
-            result.put("feedback", String.format("Expected '%s' but got '%s'", 
-                testCase.getExpected(), actualResult));
-        }
+        String feedback = passed ? null : String.format("Expected '%s' but got '%s'", 
+                testCase.getExpected(), actualResult);
         
-        return result;
+        return new TestOutcome(testCase.getInput(), testCase.getExpected(), actualResult, passed, feedback);
     }
     
     private String simulateExecution(String problemId, String input) {
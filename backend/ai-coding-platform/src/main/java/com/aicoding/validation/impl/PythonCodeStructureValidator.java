@@ -1,21 +1,33 @@
 package com.aicoding.validation.impl;
 
+import com.aicoding.util.KeywordMatcher;
 import com.aicoding.validation.CodeStructureValidator;
 import com.aicoding.validation.ValidationResult;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-
 @Component
 public class PythonCodeStructureValidator implements CodeStructureValidator {
     
     private static final Map<String, List<String>> REQUIRED_FUNCTIONS = new HashMap<>();
     private static final Map<String, List<String>> REQUIRED_PATTERNS = new HashMap<>();
     
+    // Keyword groups, matched case-sensitively like String.contains
+    private static final int DEF = 0;
+    private static final int RETURN = 1;
+    private static final int REQUIRED_FUNCTION = 2;
+    private static final Map<String, KeywordMatcher> KEYWORDS = new HashMap<>();
+    private static final KeywordMatcher DEFAULT_KEYWORDS =
+        new KeywordMatcher(List.of(List.of("def "), List.of("return")), false);
+    
+    // Pastes can be megabytes long; report at most this many line errors and as many warnings
+    private static final int MAX_LINE_ISSUES = 20;
+    
     static {
         // Define required functions for each problem type
         REQUIRED_FUNCTIONS.put("sentiment-analysis", Arrays.asList("predict_sentiment", "analyze_sentiment"));
@@ -30,6 +42,11 @@ public class PythonCodeStructureValidator implements CodeStructureValidator {
         REQUIRED_PATTERNS.put("image-classification", Arrays.asList("return", "def "));
         REQUIRED_PATTERNS.put("chatbot-nlp", Arrays.asList("return", "def "));
         REQUIRED_PATTERNS.put("style-transfer", Arrays.asList("return", "def "));
+        
+        for (Map.Entry<String, List<String>> entry : REQUIRED_FUNCTIONS.entrySet()) {
+            KEYWORDS.put(entry.getKey(), new KeywordMatcher(
+                List.of(List.of("def "), List.of("return"), entry.getValue()), false));
+        }
     }
     
     @Override
@@ -37,62 +54,108 @@ public class PythonCodeStructureValidator implements CodeStructureValidator {
         ValidationResult result = new ValidationResult();
         
         // Basic validation
-        if (code == null || code.trim().length() < 10) {
+        if (code == null || trimmedLength(code) < 10) {
             result.addError("Code is too short or empty");
             return result;
         }
         
+        List<String> requiredFunctions = REQUIRED_FUNCTIONS.get(problemId);
+        KeywordMatcher keywords = KEYWORDS.getOrDefault(problemId, DEFAULT_KEYWORDS);
+        
+        // One pass finds the keywords and collects the per-line issues
+        List<String> lineErrors = new ArrayList<>();
+        List<String> lineWarnings = new ArrayList<>();
+        int[] keywordCounts = scan(code, keywords, lineErrors, lineWarnings);
+        
         // Check for basic Python syntax
-        if (!code.contains("def ")) {
+        if (keywordCounts[DEF] == 0) {
             result.addError("No function definition found. Please define at least one function.");
         }
         
-        if (!code.contains("return")) {
+        if (keywordCounts[RETURN] == 0) {
             result.addWarning("No return statement found. Make sure your function returns a value.");
         }
         
         // Problem-specific validation
-        List<String> requiredFunctions = REQUIRED_FUNCTIONS.get(problemId);
-        if (requiredFunctions != null) {
-            boolean hasRequiredFunction = requiredFunctions.stream()
-                .anyMatch(func -> code.contains(func));
-            
-            if (!hasRequiredFunction) {
-                result.addError(String.format("Missing required function. Expected one of: %s", 
-                    String.join(", ", requiredFunctions)));
-            }
+        if (requiredFunctions != null && keywordCounts[REQUIRED_FUNCTION] == 0) {
+            result.addError(String.format("Missing required function. Expected one of: %s", 
+                String.join(", ", requiredFunctions)));
         }
         
         // Check for common syntax errors
-        validatePythonSyntax(code, result);
+        lineErrors.forEach(result::addError);
+        lineWarnings.forEach(result::addWarning);
         
         return result;
     }
     
-    private void validatePythonSyntax(String code, ValidationResult result) {
-        // Check for proper indentation patterns
-        String[] lines = code.split("\n");
+    // Walks the code once, line by line, feeding every character to the keyword matcher.
+    // Stops collecting line issues after MAX_LINE_ISSUES of each kind.
+    private int[] scan(String code, KeywordMatcher keywords, List<String> lineErrors, List<String> lineWarnings) {
+        KeywordMatcher.Counter counter = keywords.counter();
         boolean inFunction = false;
+        int lineNumber = 0;
+        int lineStart = 0;
+        int length = code.length();
         
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && code.charAt(lineEnd) != '\n') {
+                counter.accept(code.charAt(lineEnd));
+                lineEnd++;
+            }
+            if (lineEnd < length) {
+                counter.accept('\n');
+            }
+            lineNumber++;
             
-            if (line.trim().startsWith("def ")) {
-                inFunction = true;
-                if (!line.trim().endsWith(":")) {
-                    result.addError(String.format("Line %d: Function definition should end with ':'", i + 1));
-                }
+            // Bounds of the line without surrounding whitespace, as String.trim() would give
+            int first = lineStart;
+            while (first < lineEnd && code.charAt(first) <= ' ') {
+                first++;
+            }
+            int last = lineEnd;
+            while (last > first && code.charAt(last - 1) <= ' ') {
+                last--;
             }
+            boolean isDefinition = last - first > 4 && code.startsWith("def ", first);
             
             // Check for basic indentation in function body
-            if (inFunction && i + 1 < lines.length) {
-                String nextLine = lines[i + 1].trim();
-                if (!nextLine.isEmpty() && !nextLine.startsWith("def ") && 
-                    !lines[i + 1].startsWith("    ") && !lines[i + 1].startsWith("\t")) {
-                    result.addWarning(String.format("Line %d: Consider proper indentation for function body", i + 2));
+            if (inFunction && first < last && !isDefinition
+                    && !code.startsWith("    ", lineStart) && !code.startsWith("\t", lineStart)) {
+                addCapped(lineWarnings, "Line %d: Consider proper indentation for function body", lineNumber);
+            }
+            
+            if (isDefinition) {
+                inFunction = true;
+                if (code.charAt(last - 1) != ':') {
+                    addCapped(lineErrors, "Line %d: Function definition should end with ':'", lineNumber);
                 }
             }
+            
+            lineStart = lineEnd + 1;
+        }
+        return counter.counts();
+    }
+    
+    private static void addCapped(List<String> issues, String format, int lineNumber) {
+        if (issues.size() < MAX_LINE_ISSUES) {
+            issues.add(String.format(format, lineNumber));
+        } else if (issues.size() == MAX_LINE_ISSUES) {
+            issues.add(String.format("Line %d: further issues omitted", lineNumber));
+        }
+    }
+    
+    private static int trimmedLength(String code) {
+        int first = 0;
+        int last = code.length();
+        while (first < last && code.charAt(first) <= ' ') {
+            first++;
+        }
+        while (last > first && code.charAt(last - 1) <= ' ') {
+            last--;
         }
+        return last - first;
     }
     
     @Override
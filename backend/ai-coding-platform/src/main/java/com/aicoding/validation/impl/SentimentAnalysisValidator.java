@@ -1,71 +1,53 @@
 package com.aicoding.validation.impl;
 
 import com.aicoding.config.AIProblemConfig;
+import com.aicoding.util.KeywordMatcher;
 import com.aicoding.validation.TestCaseValidator;
+import com.aicoding.validation.TestOutcome;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.List;
 
 @Component
 public class SentimentAnalysisValidator implements TestCaseValidator {
     
+    private static final int POSITIVE = 0;
+    private static final int NEGATIVE = 1;
+    private static final int NEUTRAL = 2;
+    
+    // One case-insensitive scan counts all keyword groups; any neutral phrase decides on its own
+    private static final KeywordMatcher SENTIMENT_KEYWORDS = new KeywordMatcher(List.of(
+        List.of("love", "best", "great", "excellent", "amazing", "wonderful", "fantastic", "good", "nice", "happy", "joy"),
+        List.of("hate", "worst", "terrible", "awful", "bad", "horrible", "sad", "angry", "disappointed", "stuck"),
+        List.of("okay", "average", "nothing great")));
+    
     @Override
-    public Map<String, Object> validateTestCase(String problemId, AIProblemConfig.TestCase testCase, String userCode) {
-        Map<String, Object> result = new HashMap<>();
-        result.put("input", testCase.getInput());
-        result.put("expected", testCase.getExpected());
-        
+    public TestOutcome validateTestCase(String problemId, AIProblemConfig.TestCase testCase, String userCode) {
         // Execute sentiment analysis logic
         String actualResult = analyzeSentiment(testCase.getInput());
-        result.put("actual", actualResult);
         
         boolean passed = actualResult.equals(testCase.getExpected());
-        result.put("passed", passed);
-        
-        if (!passed) {
-            result.put("feedback", generateFeedback(testCase.getInput(), testCase.getExpected(), actualResult));
-        }
+        String feedback = passed ? null : generateFeedback(testCase.getInput(), testCase.getExpected(), actualResult);
         
-        return result;
+        return new TestOutcome(testCase.getInput(), testCase.getExpected(), actualResult, passed, feedback);
     }
     
     private String analyzeSentiment(String text) {
-        String lowerText = text.toLowerCase();
+        int[] counts = SENTIMENT_KEYWORDS.count(text);
         
-        String[] positiveWords = {"love", "best", "great", "excellent", "amazing", "wonderful", "fantastic", "good", "nice", "happy", "joy"};
-        String[] negativeWords = {"hate", "worst", "terrible", "awful", "bad", "horrible", "sad", "angry", "disappointed", "stuck"};
-        
-        long positiveCount = Arrays.stream(positiveWords)
-            .mapToLong(word -> countOccurrences(lowerText, word))
-            .sum();
-            
-        long negativeCount = Arrays.stream(negativeWords)
-            .mapToLong(word -> countOccurrences(lowerText, word))
-            .sum();
-        
-        if (lowerText.contains("okay") || lowerText.contains("average") || lowerText.contains("nothing great")) {
+        if (counts[NEUTRAL] > 0) {
             return "neutral";
         }
         
-        if (positiveCount > negativeCount) {
+        if (counts[POSITIVE] > counts[NEGATIVE]) {
             return "positive";
-        } else if (negativeCount > positiveCount) {
+        } else if (counts[NEGATIVE] > counts[POSITIVE]) {
             return "negative";
         } else {
             return "neutral";
         }
     }
     
-    private long countOccurrences(String text, String word) {
-        return Pattern.compile(Pattern.quote(word))
-            .matcher(text)
-            .results()
-            .count();
-    }
-    
     private String generateFeedback(String input, String expected, String actual) {
         return String.format("For input '%s', expected '%s' but got '%s'. " +
             "Consider analyzing the emotional tone of the text more carefully.", 
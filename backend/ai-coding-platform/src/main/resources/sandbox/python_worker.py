@@ -0,0 +1,161 @@
+"""Warm Python worker.
+
+LOAD compiles a program once; every RUN executes it in fresh globals with
+file descriptors 0 and 1 pointed at files of its own, so reading or writing
+them directly behaves as in a cold run, and stderr swapped for an in-memory
+buffer. Program output is capped as it is written: past the output limit the
+run ends, like a cold run hitting its file size limit. Frames on the protocol stdin/stdout are a 4-byte big-endian length
+followed by that many bytes.
+"""
+import io
+import os
+import resource
+import struct
+import sys
+import tempfile
+import traceback
+
+MAX_STDERR_BYTES = 64 * 1024
+
+# The protocol pipes, kept on descriptors of their own while a run owns 0 and 1
+_in = os.fdopen(os.dup(0), 'rb')
+_out = os.fdopen(os.dup(1), 'wb')
+
+
+def read_frame():
+    header = _in.read(4)
+    if len(header) < 4:
+        sys.exit(0)
+    (length,) = struct.unpack('>i', header)
+    return _in.read(length) if length else b''
+
+
+def write_frame(data):
+    _out.write(struct.pack('>i', len(data)))
+    _out.write(data)
+
+
+class OutputLimitExceeded(BaseException):
+    """Ends a run that printed more than the output limit."""
+
+
+class CappedWriter(io.RawIOBase):
+    """Passes at most capacity bytes on to write, then drops the rest or ends the run."""
+
+    def __init__(self, write, capacity, end_run):
+        self._write = write
+        self._room = capacity
+        self._end_run = end_run
+
+    def writable(self):
+        return True
+
+    def write(self, data):
+        if self._room > 0:
+            chunk = bytes(data[:self._room])
+            self._write(chunk)
+            self._room -= len(chunk)
+        if self._room <= 0 and self._end_run:
+            raise OutputLimitExceeded()
+        return len(data)
+
+
+def write_fd(fd):
+    def write(data):
+        view = memoryview(data)
+        while view:
+            view = view[os.write(fd, view):]
+    return write
+
+
+def cpu_seconds():
+    usage = resource.getrusage(resource.RUSAGE_SELF)
+    return usage.ru_utime + usage.ru_stime
+
+
+def redirect(stdin, stdout):
+    os.dup2(stdin.fileno(), 0)
+    os.dup2(stdout.fileno(), 1)
+
+
+def run(program, data, limit):
+    # Unlinked files in the worker's scratch directory
+    stdin = tempfile.TemporaryFile(dir='.')
+    stdin.write(data)
+    stdin.seek(0)
+    stdout = tempfile.TemporaryFile(dir='.')
+    stderr = bytearray()
+    redirect(stdin, stdout)
+    # One byte over the limit is enough to report it exceeded
+    stdout_sink = CappedWriter(write_fd(1), limit + 1, True)
+    stderr_sink = CappedWriter(stderr.extend, MAX_STDERR_BYTES, False)
+    stdout_text = io.TextIOWrapper(io.BufferedWriter(stdout_sink), encoding='utf-8')
+    stderr_text = io.TextIOWrapper(io.BufferedWriter(stderr_sink), encoding='utf-8', write_through=True)
+    sys.stdin = open(0, encoding='utf-8', closefd=False)
+    sys.stdout = stdout_text
+    sys.stderr = stderr_text
+
+    status = b'OK'
+    start = cpu_seconds()
+    try:
+        exec(program, {'__name__': '__main__', '__builtins__': __builtins__})
+    except SystemExit as e:
+        if e.code not in (None, 0):
+            status = b'ERROR'
+    except OutputLimitExceeded:
+        pass
+    except MemoryError:
+        status = b'MEMORY'
+    except BaseException as e:
+        status = b'ERROR'
+        # Skip the harness frame so the traceback starts in user code
+        traceback.print_exception(type(e), e, e.__traceback__.tb_next)
+    finally:
+        for stream in (stdout_text, stderr_text, sys.__stdout__):
+            try:
+                stream.flush()
+            except (OutputLimitExceeded, OSError, ValueError):
+                pass
+        # Whatever failed to flush must not reach the protocol pipe when collected later
+        stdout_sink.close()
+        stderr_sink.close()
+        sys.stdin, sys.stdout, sys.stderr = sys.__stdin__, sys.__stdout__, sys.__stderr__
+        redirect(_in, _out)
+    elapsed = cpu_seconds() - start
+
+    stdout.seek(0)
+    output = stdout.read(limit + 1)
+    stdin.close()
+    stdout.close()
+
+    write_frame(status)
+    write_frame(output)
+    write_frame(bytes(stderr))
+    write_frame(str(int(elapsed * 1000)).encode())
+
+
+def main():
+    program = None
+    while True:
+        command = read_frame()
+        if command == b'LOAD':
+            path = read_frame().decode('utf-8')
+            try:
+                with open(path, encoding='utf-8') as source:
+                    program = compile(source.read(), path, 'exec')
+                write_frame(b'OK')
+                write_frame(b'')
+            except Exception as e:
+                write_frame(b'ERROR')
+                write_frame(''.join(traceback.format_exception_only(type(e), e)).encode('utf-8'))
+        elif command == b'RUN':
+            data = read_frame()
+            limit = int(read_frame())
+            run(program, data, limit)
+        else:
+            return
+        _out.flush()
+
+
+if __name__ == '__main__':
+    main()
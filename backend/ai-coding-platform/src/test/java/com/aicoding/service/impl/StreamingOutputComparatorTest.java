@@ -0,0 +1,164 @@
+package com.aicoding.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.aicoding.model.MatchType;
+
+public class StreamingOutputComparatorTest {
+
+    private static final int PREVIEW_CHARS = 64;
+
+    @Test
+    public void exactIgnoresTrailingNewlines() {
+        assertTrue(matches("42", MatchType.EXACT, "42"));
+        assertTrue(matches("42", MatchType.EXACT, "42\n"));
+        assertTrue(matches("42", MatchType.EXACT, "42\r\n"));
+        assertTrue(matches("42", MatchType.EXACT, "42\n\r\n\n"));
+        assertTrue(matches("1\n2", MatchType.EXACT, "1\n2\r\n"));
+        assertFalse(matches("42", MatchType.EXACT, "42 \n"));
+        assertFalse(matches("42", MatchType.EXACT, "4"));
+        assertFalse(matches("42", MatchType.EXACT, "421"));
+        assertFalse(matches("42", MatchType.EXACT, ""));
+    }
+
+    @Test
+    public void exactReportsMismatchesInsideNewlineRuns() {
+        assertTrue(matches("a\n\nb", MatchType.EXACT, "a\n\nb\n"));
+        assertFalse(matches("a\nb", MatchType.EXACT, "a\r\nb"));
+        assertFalse(matches("a\nb", MatchType.EXACT, "a\n\nb"));
+        assertFalse(matches("a\n\nb", MatchType.EXACT, "a\nb"));
+        assertFalse(matches("a\r\nb", MatchType.EXACT, "a\n\nb"));
+        // A run that stays trailing is never compared
+        assertFalse(matches("a\nb", MatchType.EXACT, "a\n"));
+        assertTrue(matches("a", MatchType.EXACT, "a\r\r\n"));
+    }
+
+    @Test
+    public void ignoreCaseFollowsEqualsIgnoreCase() {
+        String[][] pairs = {
+            {"Hello World", "hELLO wORLD"},
+            {"\u00C4rger \u00FCber \u00D6l", "\u00E4RGER \u00DCBER \u00F6l"},
+            {"\u03A3\u038A\u03A3\u03A5\u03A6\u039F\u03A3", "\u03C3\u03AF\u03C3\u03C5\u03C6\u03BF\u03C2"},
+            {"\u00E9t\u00E9", "\u00C9T\u00C9"},
+            {"I", "\u0131"},
+            {"stra\u00DFe", "STRASSE"},
+            {"\u041F\u0440\u0438\u0432\u0435\u0442", "\u043F\u0420\u0418\u0412\u0415\u0422"},
+            {"na\u00EFve", "naive"},
+        };
+        for (String[] pair : pairs) {
+            assertEquals(pair[0].equalsIgnoreCase(pair[1]), matches(pair[0], MatchType.IGNORE_CASE, pair[1] + "\n"),
+                    pair[0] + " vs " + pair[1]);
+        }
+        assertFalse(matches("Hello", MatchType.EXACT, "hello"));
+    }
+
+    @Test
+    public void ignoreWhitespaceSkipsAllWhitespace() {
+        assertTrue(matches("1 2 3", MatchType.IGNORE_WHITESPACE, "1\t2\n3\n"));
+        assertTrue(matches("a b", MatchType.IGNORE_WHITESPACE, "ab"));
+        assertFalse(matches("a b", MatchType.IGNORE_WHITESPACE, "a b c"));
+        assertFalse(matches("a b c", MatchType.IGNORE_WHITESPACE, "a b"));
+    }
+
+    @Test
+    public void numericComparesVectorsWithinTolerance() {
+        assertTrue(matches("1 2.5 3", MatchType.NUMERIC, "1.0000001 2.5\n3\n"));
+        assertTrue(matches("1 2.5 3", MatchType.NUMERIC, "  1\t2.50\r\n3.0"));
+        assertTrue(matches("-0.5 1e3", MatchType.NUMERIC, "-.5 1000"));
+        assertFalse(matches("1 2.5 3", MatchType.NUMERIC, "1 2.6 3"));
+        assertFalse(matches("1 2.5 3", MatchType.NUMERIC, "1 2.5 x"));
+        assertFalse(matches("abc", MatchType.NUMERIC, "abc"));
+
+        OutputMatcher relative = new OutputMatcher("1000 0.001", MatchType.NUMERIC, 1, 1e-6, 1e-3);
+        assertTrue(matches(relative, "1000.5 0.001"));
+        assertFalse(matches(relative, "1002 0.001"));
+        assertFalse(matches(relative, "1000 0.0011"));
+    }
+
+    @Test
+    public void numericRequiresTheSameCount() {
+        assertFalse(matches("1 2 3", MatchType.NUMERIC, "1 2"));
+        assertFalse(matches("1 2 3", MatchType.NUMERIC, "1 2 3 4"));
+        assertFalse(matches("1 2 3", MatchType.NUMERIC, "1 2 3 4\n"));
+        assertFalse(matches("1 2 3", MatchType.NUMERIC, ""));
+        assertTrue(matches("1 2 3", MatchType.NUMERIC, "1 2 3\n\n"));
+    }
+
+    @Test
+    public void verdictDoesNotDependOnHowOutputIsSplit() {
+        Random random = new Random(42);
+        // Match type, expected output, program output and verdict
+        String[][] cases = {
+            {"EXACT", "line one\r\nline two", "line one\r\nline two\r\n", "true"},
+            {"EXACT", "a\nb", "a\r\nb", "false"},
+            {"IGNORE_CASE", "\u03A3\u038A\u03A3\u03A5\u03A6\u039F\u03A3 und \u00C4rger", "\u03C3\u03AF\u03C3\u03C5\u03C6\u03BF\u03C2 UND \u00E4RGER\n", "true"},
+            {"IGNORE_WHITESPACE", "1 2 3", " 1\t2\r\n3 ", "true"},
+            {"NUMERIC", "1234 5678.25 -9", "1234 5678.25\n-9\n", "true"},
+            {"NUMERIC", "1234 5678", "12345678", "false"},
+            {"NUMERIC", "12 34", "1234", "false"},
+        };
+        for (String[] testCase : cases) {
+            MatchType matchType = MatchType.valueOf(testCase[0]);
+            String expected = testCase[1];
+            String output = testCase[2];
+            boolean verdict = Boolean.parseBoolean(testCase[3]);
+            assertEquals(verdict, matches(expected, matchType, output), testCase[0] + " " + expected);
+            for (int round = 0; round < 50; round++) {
+                StreamingOutputComparator comparator = matcher(expected, matchType).comparator(PREVIEW_CHARS);
+                int start = 0;
+                while (start < output.length()) {
+                    int end = start + 1 + random.nextInt(Math.min(4, output.length() - start));
+                    write(comparator, output.substring(start, end));
+                    start = end;
+                }
+                assertEquals(verdict, comparator.matches(), testCase[0] + " " + expected);
+            }
+        }
+    }
+
+    @Test
+    public void previewKeepsTheStartOfLongOutputs() {
+        StreamingOutputComparator comparator = matcher("abcdefgh", MatchType.EXACT).comparator(4);
+        write(comparator, "abcdefgh\n");
+        assertTrue(comparator.matches());
+        assertEquals("abcd", comparator.getPreview());
+
+        comparator = matcher("ab", MatchType.EXACT).comparator(4);
+        write(comparator, "ab\n");
+        assertEquals("ab", comparator.getPreview());
+    }
+
+    @Test
+    public void otherMatchTypesBufferTheWholeOutput() {
+        OutputMatcher matcher = matcher("\\d+ items", MatchType.REGEX);
+        StreamingOutputComparator comparator = matcher.comparator(4);
+        write(comparator, "12 items\r\n");
+        assertFalse(comparator.isStreamed());
+        assertEquals("12 items", comparator.getOutput());
+        assertTrue(matcher.matches(comparator.getOutput()));
+    }
+
+    private static OutputMatcher matcher(String expected, MatchType matchType) {
+        return new OutputMatcher(expected, matchType, 1, 1e-6, 0);
+    }
+
+    private static boolean matches(String expected, MatchType matchType, String output) {
+        return matches(matcher(expected, matchType), output);
+    }
+
+    private static boolean matches(OutputMatcher matcher, String output) {
+        StreamingOutputComparator comparator = matcher.comparator(PREVIEW_CHARS);
+        write(comparator, output);
+        return comparator.matches();
+    }
+
+    private static void write(StreamingOutputComparator comparator, String text) {
+        comparator.write(text.toCharArray(), 0, text.length());
+    }
+}
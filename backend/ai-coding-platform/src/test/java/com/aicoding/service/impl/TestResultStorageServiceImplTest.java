@@ -0,0 +1,158 @@
+package com.aicoding.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.aicoding.model.PackedTestResults;
+import com.aicoding.model.SubmissionStatus;
+import com.aicoding.model.TestCase;
+import com.aicoding.model.TestResult;
+
+public class TestResultStorageServiceImplTest {
+
+    private static final int MAX_OUTPUT_KB = 1;
+
+    private final TestResultStorageServiceImpl service = new TestResultStorageServiceImpl();
+
+    public TestResultStorageServiceImplTest() {
+        ReflectionTestUtils.setField(service, "maxOutputKb", MAX_OUTPUT_KB);
+    }
+
+    @Test
+    public void packedResultsRoundTrip() {
+        Random random = new Random(7);
+        // Around the byte boundaries of the passed bitset
+        for (int count = 1; count <= 25; count++) {
+            for (int round = 0; round < 20; round++) {
+                List<TestResult> testResults = randomResults(random, count);
+                Map<Long, TestCase> testCases = new HashMap<>();
+                testResults.forEach(testResult -> testCases.put(testResult.getTestCase().getId(), testResult.getTestCase()));
+
+                List<TestResult> unpacked = unpack(pack(testResults), testCases);
+
+                assertEquals(count, unpacked.size());
+                int firstFailure = firstFailure(testResults);
+                for (int i = 0; i < count; i++) {
+                    assertRoundTrip(testResults.get(i), unpacked.get(i), i == firstFailure);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void onlyTheFirstFailureKeepsItsOutput() {
+        List<TestResult> testResults = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            TestResult testResult = result(i + 1L, i != 9 && i != 10);
+            testResult.setActualOutput("output " + i);
+            testResult.setErrorMessage("error " + i);
+            testResults.add(testResult);
+        }
+
+        PackedTestResults packed = pack(testResults);
+        List<TestResult> unpacked = unpack(packed, new HashMap<>());
+
+        assertEquals(9, packed.getFirstFailureIndex());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(i + 1L, unpacked.get(i).getTestCase().getId());
+            assertEquals(i != 9 && i != 10, unpacked.get(i).isPassed());
+            assertEquals(i == 9 ? "output 9" : null, unpacked.get(i).getActualOutput());
+            assertEquals(i == 9 ? "error 9" : null, unpacked.get(i).getErrorMessage());
+        }
+    }
+
+    @Test
+    public void firstFailureOutputIsCappedAndInflated() {
+        int maxChars = MAX_OUTPUT_KB * 1024;
+        StringBuilder output = new StringBuilder();
+        while (output.length() < 3 * maxChars) {
+            output.append("line \u00E9\u4E2D ").append(output.length()).append('\n');
+        }
+        TestResult testResult = result(1L, false);
+        testResult.setActualOutput(output.toString());
+        testResult.setErrorMessage(null);
+
+        PackedTestResults packed = pack(List.of(result(2L, true), testResult));
+        List<TestResult> unpacked = unpack(packed, new HashMap<>());
+
+        assertEquals(1, packed.getFirstFailureIndex());
+        assertEquals(output.substring(0, maxChars), unpacked.get(1).getActualOutput());
+        assertNull(unpacked.get(1).getErrorMessage());
+        assertNull(unpacked.get(0).getActualOutput());
+    }
+
+    @Test
+    public void allPassedKeepsNoOutput() {
+        PackedTestResults packed = pack(List.of(result(1L, true), result(2L, true)));
+
+        assertNull(packed.getFirstFailureIndex());
+        assertNull(packed.getFirstFailureOutput());
+        assertNull(packed.getFirstFailureError());
+    }
+
+    private PackedTestResults pack(List<TestResult> testResults) {
+        return ReflectionTestUtils.invokeMethod(service, "pack", 42L, testResults);
+    }
+
+    private List<TestResult> unpack(PackedTestResults packed, Map<Long, TestCase> testCases) {
+        return ReflectionTestUtils.invokeMethod(service, "unpack", packed, testCases);
+    }
+
+    private static List<TestResult> randomResults(Random random, int count) {
+        SubmissionStatus[] verdicts = SubmissionStatus.values();
+        List<TestResult> testResults = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TestResult testResult = result(random.nextLong(), random.nextBoolean());
+            testResult.setVerdict(random.nextInt(4) == 0 ? null : verdicts[random.nextInt(verdicts.length)]);
+            testResult.setExecutionTimeMs(random.nextBoolean() ? null : (long) random.nextInt(Integer.MAX_VALUE));
+            testResult.setCpuTimeMs(random.nextBoolean() ? null : (long) random.nextInt(10_000));
+            testResult.setMemoryUsageBytes(random.nextBoolean() ? null : random.nextLong() & Long.MAX_VALUE);
+            testResult.setSimilarityScore(random.nextBoolean() ? null : random.nextDouble());
+            testResult.setActualOutput("actual " + i);
+            testResult.setErrorMessage(random.nextBoolean() ? null : "error " + i);
+            testResults.add(testResult);
+        }
+        return testResults;
+    }
+
+    private static TestResult result(Long testCaseId, boolean passed) {
+        TestCase testCase = new TestCase();
+        testCase.setId(testCaseId);
+        TestResult testResult = new TestResult();
+        testResult.setTestCase(testCase);
+        testResult.setPassed(passed);
+        return testResult;
+    }
+
+    private static int firstFailure(List<TestResult> testResults) {
+        for (int i = 0; i < testResults.size(); i++) {
+            if (!testResults.get(i).isPassed()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void assertRoundTrip(TestResult expected, TestResult actual, boolean firstFailure) {
+        assertEquals(expected.getTestCase().getId(), actual.getTestCase().getId());
+        assertEquals(expected.isPassed(), actual.isPassed());
+        assertEquals(expected.getVerdict(), actual.getVerdict());
+        assertEquals(expected.getExecutionTimeMs(), actual.getExecutionTimeMs());
+        assertEquals(expected.getCpuTimeMs(), actual.getCpuTimeMs());
+        assertEquals(expected.getMemoryUsageBytes(), actual.getMemoryUsageBytes());
+        // Similarity scores are stored as floats
+        assertEquals(expected.getSimilarityScore() != null ? (double) expected.getSimilarityScore().floatValue() : null,
+                actual.getSimilarityScore());
+        assertEquals(firstFailure ? expected.getActualOutput() : null, actual.getActualOutput());
+        assertEquals(firstFailure ? expected.getErrorMessage() : null, actual.getErrorMessage());
+    }
+}
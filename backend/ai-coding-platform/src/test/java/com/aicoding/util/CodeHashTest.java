@@ -0,0 +1,33 @@
+package com.aicoding.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class CodeHashTest {
+
+    @Test
+    public void lineEndingsAndTrailingBlankLinesDoNotChangeTheHash() {
+        String code = "a = 1\nprint(a)";
+        assertEquals(CodeHash.of(code), CodeHash.of("a = 1\r\nprint(a)\r\n"));
+        assertEquals(CodeHash.of(code), CodeHash.of("a = 1\rprint(a)\r"));
+        assertEquals(CodeHash.of(code), CodeHash.of("a = 1\nprint(a)\n\n\n"));
+        assertEquals(CodeHash.of(""), CodeHash.of(null));
+    }
+
+    @Test
+    public void whitespaceInsideLinesChangesTheHash() {
+        // Part of a triple-quoted string
+        assertNotEquals(CodeHash.of("s = '''a  \n'''"), CodeHash.of("s = '''a\n'''"));
+        // A backslash followed by a space is not a line continuation
+        assertNotEquals(CodeHash.of("x = 1 + \\ \n2"), CodeHash.of("x = 1 + \\\n2"));
+        assertNotEquals(CodeHash.of("if x:\n    y()"), CodeHash.of("if x:\n  y()"));
+    }
+
+    @Test
+    public void blankLinesBeforeTheEndAreKept() {
+        assertNotEquals(CodeHash.of("a\n\nb"), CodeHash.of("a\nb"));
+        assertNotEquals(CodeHash.of("a\n  \n"), CodeHash.of("a"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.aicoding.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class EditDistanceTest {
+
+    // Includes characters 256 apart, which share a bucket of the character count bound
+    private static final char[] ALPHABET = {'a', 'b', 'c', '\n', 'a' + 256, '\u00E9'};
+
+    @Test
+    public void matchesFullMatrixOnRandomStrings() {
+        Random random = new Random(20);
+        for (int round = 0; round < 5000; round++) {
+            String a = randomString(random, random.nextInt(12));
+            String b = random.nextInt(3) == 0 ? mutate(random, a) : randomString(random, random.nextInt(12));
+            int distance = naive(a, b);
+            for (int max = 0; max <= Math.max(a.length(), b.length()) + 1; max++) {
+                int expected = distance <= max ? distance : max + 1;
+                assertEquals(expected, EditDistance.atMost(a, b, max), a + " / " + b + " max " + max);
+                assertEquals(expected, EditDistance.atMost(b, a, max), b + " / " + a + " max " + max);
+            }
+        }
+    }
+
+    @Test
+    public void handlesEmptyAndEqualTexts() {
+        assertEquals(0, EditDistance.atMost("", "", 0));
+        assertEquals(3, EditDistance.atMost("", "abc", 3));
+        assertEquals(3, EditDistance.atMost("abc", "", 2));
+        assertEquals(0, EditDistance.atMost("same", "same", 0));
+        assertEquals(1, EditDistance.atMost("kitten", "sitten", 0));
+        assertEquals(3, EditDistance.atMost("kitten", "sitting", 5));
+        assertEquals(3, EditDistance.atMost("kitten", "sitting", 2));
+    }
+
+    @Test
+    public void budgetOnlyGivesUpOnExpensivePairs() {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        String a = text.toString();
+        String b = a.substring(0, 50_000) + "x" + a.substring(50_001);
+
+        // Nearby texts stay within a small budget however long they are
+        assertEquals(1, EditDistance.atMost(a, b, 1_000, 1_000));
+        assertEquals(EditDistance.UNKNOWN, EditDistance.atMost(a, new StringBuilder(a).reverse(), 50_000, 1_000));
+        // Rejected by the length bound before any cell is evaluated
+        assertEquals(11, EditDistance.atMost(a, a.substring(11), 10, 0));
+    }
+
+    @Test
+    public void budgetedResultsAreExactOrUnknown() {
+        Random random = new Random(21);
+        for (int round = 0; round < 5000; round++) {
+            String a = randomString(random, random.nextInt(20));
+            String b = random.nextBoolean() ? mutate(random, a) : randomString(random, random.nextInt(20));
+            int max = random.nextInt(25);
+            int distance = naive(a, b);
+            int result = EditDistance.atMost(a, b, max, random.nextInt(40));
+            assertTrue(result == EditDistance.UNKNOWN || result == (distance <= max ? distance : max + 1),
+                    a + " / " + b + " max " + max + " gave " + result);
+        }
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return text.toString();
+    }
+
+    // A few random insertions, deletions and substitutions
+    private static String mutate(Random random, String text) {
+        StringBuilder mutated = new StringBuilder(text);
+        for (int edits = random.nextInt(4); edits > 0; edits--) {
+            int position = random.nextInt(mutated.length() + 1);
+            char c = ALPHABET[random.nextInt(ALPHABET.length)];
+            switch (random.nextInt(3)) {
+                case 0:
+                    mutated.insert(position, c);
+                    break;
+                case 1:
+                    if (position < mutated.length()) {
+                        mutated.deleteCharAt(position);
+                    }
+                    break;
+                default:
+                    if (position < mutated.length()) {
+                        mutated.setCharAt(position, c);
+                    }
+                    break;
+            }
+        }
+        return mutated.toString();
+    }
+
+    private static int naive(String a, String b) {
+        int[][] distances = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    distances[i][j] = i + j;
+                } else {
+                    int substitution = distances[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                    distances[i][j] = Math.min(substitution, Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+                }
+            }
+        }
+        return distances[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,99 @@
+package com.aicoding.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class KeywordMatcherTest {
+
+    @Test
+    public void countsOverlappingKeywordsOfDifferentGroups() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of(List.of("great"), List.of("nothing great")));
+
+        assertArrayEquals(new int[] {1, 1}, matcher.count("nothing great here"));
+        assertArrayEquals(new int[] {2, 1}, matcher.count("great, nothing great"));
+        assertArrayEquals(new int[] {1, 0}, matcher.count("nothing  great"));
+    }
+
+    @Test
+    public void countsOccurrencesOfOneKeywordWithoutOverlap() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of(List.of("aaa"), List.of("aa")));
+
+        assertArrayEquals(new int[] {1, 2}, matcher.count("aaaa"));
+        assertArrayEquals(new int[] {2, 3}, matcher.count("aaaaaa"));
+        assertArrayEquals(new int[] {0, 1}, matcher.count("aa"));
+    }
+
+    @Test
+    public void foldsCaseByDefault() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of(List.of("great", "good"), List.of("bad")));
+
+        assertArrayEquals(new int[] {3, 1}, matcher.count("GREAT Great good, not BaD"));
+        // Non-ASCII characters never match and break a keyword
+        assertArrayEquals(new int[] {0, 0}, matcher.count("gr\u00E9at b\u00E4d"));
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(List.of(List.of("Great"))));
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(List.of(List.of(""))));
+    }
+
+    @Test
+    public void caseSensitiveCounterOnlyMatchesExactCase() {
+        KeywordMatcher matcher = new KeywordMatcher(List.of(List.of("def "), List.of("return", "True")), false);
+
+        KeywordMatcher.Counter counter = matcher.counter();
+        for (char c : "def f():\n    return True\nDEF g(): RETURN true".toCharArray()) {
+            counter.accept(c);
+        }
+        assertArrayEquals(new int[] {1, 2}, counter.counts());
+        assertArrayEquals(counter.counts(), matcher.count("def f():\n    return True\nDEF g(): RETURN true"));
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(List.of(List.of("caf\u00E9")), false));
+    }
+
+    @Test
+    public void matchesRepeatedFindOnRandomTexts() {
+        Random random = new Random(18);
+        char[] alphabet = {'a', 'b', 'A', 'B', ' ', '\u00E9'};
+        for (int round = 0; round < 2000; round++) {
+            boolean ignoreCase = random.nextBoolean();
+            List<List<String>> groups = new ArrayList<>();
+            for (int group = 1 + random.nextInt(3); group > 0; group--) {
+                List<String> keywords = new ArrayList<>();
+                for (int keyword = 1 + random.nextInt(3); keyword > 0; keyword--) {
+                    String text = randomText(random, alphabet, 1 + random.nextInt(4)).replace('\u00E9', 'a');
+                    keywords.add(ignoreCase ? text.toLowerCase() : text);
+                }
+                groups.add(keywords);
+            }
+            String text = randomText(random, alphabet, random.nextInt(40));
+
+            assertArrayEquals(naive(groups, text, ignoreCase), new KeywordMatcher(groups, ignoreCase).count(text),
+                    groups + " in '" + text + "'");
+        }
+    }
+
+    private static String randomText(Random random, char[] alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return text.toString();
+    }
+
+    // Each keyword counted with repeated indexOf, like Matcher.find()
+    private static int[] naive(List<List<String>> groups, String text, boolean ignoreCase) {
+        String folded = ignoreCase ? text.toLowerCase() : text;
+        int[] counts = new int[groups.size()];
+        for (int group = 0; group < groups.size(); group++) {
+            for (String keyword : groups.get(group)) {
+                for (int at = folded.indexOf(keyword); at >= 0; at = folded.indexOf(keyword, at + keyword.length())) {
+                    counts[group]++;
+                }
+            }
+        }
+        return counts;
+    }
+}